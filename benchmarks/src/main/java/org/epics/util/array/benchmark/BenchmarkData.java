@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.benchmark;
+
+import java.util.Random;
+import org.epics.util.array.ArrayByte;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayFloat;
+import org.epics.util.array.ArrayInt;
+import org.epics.util.array.ArrayLong;
+import org.epics.util.array.ArrayShort;
+import org.epics.util.array.ListNumber;
+
+/**
+ * Generates the data used by the benchmarks. The seed is fixed so that
+ * all runs work on the same values.
+ *
+ * @author carcassi
+ */
+public class BenchmarkData {
+
+    private BenchmarkData() {
+        // prevent instances
+    }
+
+    /**
+     * Creates a list of the given element type filled with random values.
+     * 
+     * @param type one of double, float, long, int, short or byte
+     * @param size the number of elements
+     * @return a new list
+     */
+    public static ListNumber randomList(String type, int size) {
+        Random rand = new Random(1);
+        switch (type) {
+            case "double":
+                double[] doubleArray = new double[size];
+                for (int i = 0; i < size; i++) {
+                    doubleArray[i] = rand.nextGaussian();
+                }
+                return new ArrayDouble(doubleArray);
+            case "float":
+                float[] floatArray = new float[size];
+                for (int i = 0; i < size; i++) {
+                    floatArray[i] = (float) rand.nextGaussian();
+                }
+                return new ArrayFloat(floatArray);
+            case "long":
+                long[] longArray = new long[size];
+                for (int i = 0; i < size; i++) {
+                    longArray[i] = rand.nextInt(1000);
+                }
+                return new ArrayLong(longArray);
+            case "int":
+                int[] intArray = new int[size];
+                for (int i = 0; i < size; i++) {
+                    intArray[i] = rand.nextInt(1000);
+                }
+                return new ArrayInt(intArray);
+            case "short":
+                short[] shortArray = new short[size];
+                for (int i = 0; i < size; i++) {
+                    shortArray[i] = (short) rand.nextInt(1000);
+                }
+                return new ArrayShort(shortArray);
+            case "byte":
+                byte[] byteArray = new byte[size];
+                rand.nextBytes(byteArray);
+                return new ArrayByte(byteArray);
+            default:
+                throw new IllegalArgumentException("Unsupported type " + type);
+        }
+    }
+
+    /**
+     * Creates an array of normally distributed doubles.
+     * 
+     * @param size the number of elements
+     * @return a new array
+     */
+    public static double[] randomDoubles(int size) {
+        Random rand = new Random(1);
+        double[] array = new double[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = rand.nextGaussian();
+        }
+        return array;
+    }
+}
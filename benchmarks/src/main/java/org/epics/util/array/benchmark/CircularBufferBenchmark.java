@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.epics.util.array.CircularBufferDouble;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Appending samples to a {@link CircularBufferDouble} that has already
+ * reached its maximum capacity.
+ *
+ * @author carcassi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CircularBufferBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int capacity;
+
+    private CircularBufferDouble buffer;
+    private double[] samples;
+
+    @Setup
+    public void setup() {
+        buffer = new CircularBufferDouble(capacity);
+        for (int i = 0; i < capacity; i++) {
+            buffer.addDouble(i);
+        }
+        samples = BenchmarkData.randomDoubles(BATCH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public CircularBufferDouble addDouble() {
+        for (int i = 0; i < samples.length; i++) {
+            buffer.addDouble(samples[i]);
+        }
+        return buffer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public CircularBufferDouble addAll() {
+        buffer.addAll(samples, 0, samples.length);
+        return buffer;
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.CircularBufferDouble;
+import org.epics.util.array.FirFilter;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListMath;
+import org.epics.util.array.Window;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Smoothing of a waveform: convolution with a window, and the same
+ * filter applied to a circular buffer through a {@link FirFilter}.
+ *
+ * @author carcassi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ConvolutionBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"16", "128", "1024"})
+    public int kernelSize;
+
+    private ArrayDouble data;
+    private ListDouble kernel;
+    private CircularBufferDouble buffer;
+    private FirFilter filter;
+    private double[] result;
+
+    @Setup
+    public void setup() {
+        data = new ArrayDouble(BenchmarkData.randomDoubles(size));
+        kernel = Window.HANN.coefficients(kernelSize);
+        buffer = new CircularBufferDouble(size);
+        buffer.addAll(data);
+        filter = new FirFilter(kernel);
+        result = new double[size + kernelSize - 1];
+    }
+
+    @Benchmark
+    public double[] convolve() {
+        ListMath.convolve(data, kernel, result);
+        return result;
+    }
+
+    @Benchmark
+    public double[] firFilter() {
+        filter.filter(buffer, result, 0);
+        return result;
+    }
+}
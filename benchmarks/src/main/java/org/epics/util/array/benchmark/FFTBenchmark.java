@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.FFT;
+import org.epics.util.array.ListNumber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Spectra of waveforms with {@link FFT}: complex and real input, for
+ * power of two sizes and for sizes that go through Bluestein's algorithm.
+ *
+ * @author carcassi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FFTBenchmark {
+
+    @Param({"16384", "65536", "100000", "262144"})
+    public int size;
+
+    private FFT fft;
+    private double[] waveform;
+    private ListNumber data;
+    private double[] re;
+    private double[] im;
+
+    @Setup
+    public void setup() {
+        fft = FFT.forSize(size);
+        waveform = BenchmarkData.randomDoubles(size);
+        data = new ArrayDouble(waveform);
+        re = new double[size];
+        im = new double[size];
+    }
+
+    @Benchmark
+    public double[] complexTransform() {
+        System.arraycopy(waveform, 0, re, 0, size);
+        Arrays.fill(im, 0.0);
+        fft.transform(re, im);
+        return re;
+    }
+
+    @Benchmark
+    public double[] realTransform() {
+        fft.realTransform(data, re, im);
+        return re;
+    }
+}
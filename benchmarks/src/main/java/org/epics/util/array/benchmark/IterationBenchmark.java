@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.epics.util.array.ConsumerDouble;
+import org.epics.util.array.IteratorNumber;
+import org.epics.util.array.ListNumber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Iteration over the array wrappers through {@link IteratorNumber},
+ * through indexed access and through internal iteration.
+ *
+ * @author carcassi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class IterationBenchmark {
+
+    @Param({"double", "int", "byte"})
+    public String type;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private ListNumber list;
+
+    @Setup
+    public void setup() {
+        list = BenchmarkData.randomList(type, size);
+    }
+
+    @Benchmark
+    public double iteratorNextDouble() {
+        IteratorNumber iter = list.iterator();
+        double sum = 0;
+        while (iter.hasNext()) {
+            sum += iter.nextDouble();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double getDouble() {
+        double sum = 0;
+        for (int i = 0; i < list.size(); i++) {
+            sum += list.getDouble(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double forEachDouble() {
+        Sum sum = new Sum();
+        list.forEachDouble(sum);
+        return sum.value;
+    }
+
+    private static class Sum implements ConsumerDouble {
+
+        private double value;
+
+        @Override
+        public void accept(double value) {
+            this.value += value;
+        }
+    }
+}
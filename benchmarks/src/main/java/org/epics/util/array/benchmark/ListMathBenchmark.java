@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListMath;
+import org.epics.util.array.ListNumber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full reads of the views returned by {@link ListMath}, compared with
+ * the eager operations that compute into a preallocated array and with
+ * the same chain of operations evaluated as a fused expression.
+ *
+ * @author carcassi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ListMathBenchmark {
+
+    @Param({"double", "float", "int"})
+    public String type;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private ListNumber data1;
+    private ListNumber data2;
+    private double[] result;
+
+    @Setup
+    public void setup() {
+        data1 = BenchmarkData.randomList(type, size);
+        data2 = BenchmarkData.randomList(type, size);
+        result = new double[size];
+    }
+
+    private static double sum(ListDouble list) {
+        double sum = 0;
+        for (int i = 0; i < list.size(); i++) {
+            sum += list.getDouble(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double rescale() {
+        return sum(ListMath.rescale(data1, 2.5, 1.0));
+    }
+
+    @Benchmark
+    public double add() {
+        return sum(ListMath.add(data1, data2));
+    }
+
+    @Benchmark
+    public double multiply() {
+        return sum(ListMath.multiply(data1, data2));
+    }
+
+    @Benchmark
+    public double chain() {
+        return sum(ListMath.rescale(ListMath.add(ListMath.multiply(data1, data2), data1), 2.5, 1.0));
+    }
+
+    @Benchmark
+    public double[] rescaleEager() {
+        ListMath.rescale(data1, 2.5, 1.0, result);
+        return result;
+    }
+
+    @Benchmark
+    public double[] addEager() {
+        ListMath.add(data1, data2, result);
+        return result;
+    }
+
+    @Benchmark
+    public double[] multiplyEager() {
+        ListMath.multiply(data1, data2, result);
+        return result;
+    }
+
+    @Benchmark
+    public double[] addView() {
+        ListMath.add(data1, data2).getDoubles(0, result, 0, size);
+        return result;
+    }
+
+    @Benchmark
+    public double[] chainView() {
+        ListMath.rescale(ListMath.add(ListMath.multiply(data1, data2), data1), 2.5, 1.0).getDoubles(0, result, 0, size);
+        return result;
+    }
+
+    @Benchmark
+    public double[] chainFused() {
+        ListMath.expression(data1).multiply(data2).add(data1).rescale(2.5, 1.0).evaluate(result);
+        return result;
+    }
+}
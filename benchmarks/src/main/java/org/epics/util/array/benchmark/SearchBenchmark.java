@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.ListNumbers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup of a set of sorted values in a time axis: one search per value
+ * versus the batch search, for a linear list, for jittered timestamps
+ * and for random sorted values.
+ *
+ * @author carcassi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    @Param({"linear", "timestamps", "random"})
+    public String axis;
+
+    @Param({"100000", "10000000"})
+    public int size;
+
+    @Param({"1000"})
+    public int nQueries;
+
+    private ListNumber values;
+    private ListNumber queries;
+    private int[] result;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(1);
+        double[] array = new double[size];
+        switch (axis) {
+            case "linear":
+                values = ListNumbers.linearList(0, 1, size);
+                break;
+            case "timestamps":
+                for (int i = 0; i < size; i++) {
+                    array[i] = 1.0e9 + i + rand.nextDouble() * 0.1;
+                }
+                values = new ArrayDouble(array);
+                break;
+            default:
+                for (int i = 0; i < size; i++) {
+                    array[i] = rand.nextDouble() * size;
+                }
+                Arrays.sort(array);
+                values = new ArrayDouble(array);
+        }
+        double[] queryArray = new double[nQueries];
+        double first = values.getDouble(0);
+        double last = values.getDouble(size - 1);
+        for (int i = 0; i < nQueries; i++) {
+            queryArray[i] = first + (last - first) * (i + 0.5) / nQueries;
+        }
+        queries = new ArrayDouble(queryArray);
+        result = new int[nQueries];
+    }
+
+    @Benchmark
+    public int[] single() {
+        for (int i = 0; i < nQueries; i++) {
+            result[i] = ListNumbers.binarySearchValueOrLower(values, queries.getDouble(i));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int[] batch() {
+        ListNumbers.binarySearchValueOrLower(values, queries, result);
+        return result;
+    }
+}
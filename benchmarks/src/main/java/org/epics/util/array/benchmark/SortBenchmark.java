@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.ListNumbers;
+import org.epics.util.array.SortedListView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sorted views of random, descending and mostly constant data, with
+ * the unstable, the stable and the parallel sort.
+ *
+ * @author carcassi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SortBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"random", "descending", "duplicates"})
+    public String order;
+
+    private ListNumber data;
+
+    @Setup
+    public void setup() {
+        double[] values = BenchmarkData.randomDoubles(size);
+        if ("descending".equals(order)) {
+            for (int i = 0; i < size; i++) {
+                values[i] = size - i;
+            }
+        } else if ("duplicates".equals(order)) {
+            for (int i = 0; i < size; i++) {
+                values[i] = Math.floor(values[i] * 4);
+            }
+        }
+        data = new ArrayDouble(values);
+    }
+
+    @Benchmark
+    public SortedListView sortedView() {
+        return ListNumbers.sortedView(data);
+    }
+
+    @Benchmark
+    public SortedListView stableSortedView() {
+        return ListNumbers.sortedView(data, true);
+    }
+
+    @Benchmark
+    public SortedListView parallelSortedView() {
+        return ListNumbers.parallelSortedView(data, 0);
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.codec.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayInt;
+import org.epics.util.array.ArrayLong;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.codec.CompressionCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compression and decompression speed of {@link CompressionCodec} on
+ * typical signals. The score is in values per microsecond: multiply by the
+ * size of the element (8 bytes, 4 for adcInt) to get MB/s. The
+ * compression ratio (raw size over compressed size) is reported as the
+ * secondary result "compressionRatio".
+ *
+ * @author carcassi
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CompressionBenchmark {
+
+    private static final int SIZE = 100000;
+
+    /**
+     * heldDouble: a double setpoint that changes rarely;
+     * quantizedSine: a slow sine read with 3 decimal digits;
+     * noisyDouble: a gaussian noise on top of an offset;
+     * counterLong: a timestamp in nanoseconds with jitter;
+     * adcInt: a 16 bit ADC reading with a few counts of noise.
+     */
+    @Param({"heldDouble", "quantizedSine", "noisyDouble", "counterLong", "adcInt"})
+    public String signal;
+
+    private ListNumber data;
+    private ByteBuffer compressed;
+    private double[] doubles;
+    private int rawSize;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Ratio {
+
+        public double compressionRatio;
+    }
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(1);
+        switch (signal) {
+            case "heldDouble": {
+                double[] values = new double[SIZE];
+                double value = 10.0;
+                for (int i = 0; i < SIZE; i++) {
+                    if (rand.nextInt(100) == 0) {
+                        value = Math.round(rand.nextDouble() * 1000) / 100.0;
+                    }
+                    values[i] = value;
+                }
+                data = new ArrayDouble(values);
+                break;
+            }
+            case "quantizedSine": {
+                double[] values = new double[SIZE];
+                for (int i = 0; i < SIZE; i++) {
+                    values[i] = Math.round(Math.sin(i / 1000.0) * 1000) / 1000.0;
+                }
+                data = new ArrayDouble(values);
+                break;
+            }
+            case "noisyDouble": {
+                double[] values = new double[SIZE];
+                for (int i = 0; i < SIZE; i++) {
+                    values[i] = 100.0 + rand.nextGaussian() * 0.01;
+                }
+                data = new ArrayDouble(values);
+                break;
+            }
+            case "counterLong": {
+                long[] values = new long[SIZE];
+                long value = 1400000000000000000L;
+                for (int i = 0; i < SIZE; i++) {
+                    value += 100000000L + rand.nextInt(10000);
+                    values[i] = value;
+                }
+                data = new ArrayLong(values);
+                break;
+            }
+            case "adcInt": {
+                int[] values = new int[SIZE];
+                for (int i = 0; i < SIZE; i++) {
+                    values[i] = 32000 + (int) (Math.sin(i / 5000.0) * 1000) + rand.nextInt(8);
+                }
+                data = new ArrayInt(values);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported signal " + signal);
+        }
+        rawSize = SIZE * (data instanceof ArrayInt ? 4 : 8);
+        compressed = CompressionCodec.encode(data);
+        doubles = new double[SIZE];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public ByteBuffer encode(Ratio ratio) {
+        ByteBuffer buffer = CompressionCodec.encode(data);
+        ratio.compressionRatio = (double) rawSize / buffer.remaining();
+        return buffer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double[] decode() {
+        CompressionCodec.decode(compressed.duplicate()).getDoubles(0, doubles, 0, SIZE);
+        return doubles;
+    }
+}
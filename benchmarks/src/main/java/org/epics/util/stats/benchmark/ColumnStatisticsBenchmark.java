@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.benchmark.BenchmarkData;
+import org.epics.util.stats.Range;
+import org.epics.util.stats.Ranges;
+import org.epics.util.stats.Statistics;
+import org.epics.util.stats.StatisticsUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Statistics of the two axes of a scatter plot: one call per column
+ * versus a single pass over both columns.
+ *
+ * @author carcassi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ColumnStatisticsBenchmark {
+
+    @Param({"double", "float"})
+    public String type;
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private ListNumber x;
+    private ListNumber y;
+
+    @Setup
+    public void setup() {
+        x = BenchmarkData.randomList(type, size);
+        y = BenchmarkData.randomList(type, size);
+    }
+
+    @Benchmark
+    public Range separate() {
+        Statistics statsX = StatisticsUtil.statisticsOf(x);
+        Statistics statsY = StatisticsUtil.statisticsOf(y);
+        return Ranges.sum(statsX, statsY);
+    }
+
+    @Benchmark
+    public Range fused() {
+        List<Statistics> stats = StatisticsUtil.columnStatisticsOf(x, y);
+        return Ranges.sum(stats.get(0), stats.get(1));
+    }
+
+    @Benchmark
+    public Range fusedSkipNaNRows() {
+        List<Statistics> stats = StatisticsUtil.columnStatisticsOf(true, x, y);
+        return Ranges.sum(stats.get(0), stats.get(1));
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.benchmark.BenchmarkData;
+import org.epics.util.stats.Histogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Histogram filling with linear bins, with arbitrary edges and with
+ * linear bins split across threads.
+ *
+ * @author carcassi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class HistogramBenchmark {
+
+    @Param({"double", "int"})
+    public String type;
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"100"})
+    public int nBins;
+
+    private ListNumber data;
+    private Histogram linear;
+    private Histogram edges;
+
+    @Setup
+    public void setup() {
+        data = BenchmarkData.randomList(type, size);
+        linear = Histogram.linear(-3, 3, nBins);
+        double[] array = new double[nBins + 1];
+        for (int i = 0; i <= nBins; i++) {
+            array[i] = Math.sinh(-3 + 6.0 * i / nBins);
+        }
+        edges = Histogram.withEdges(new ArrayDouble(array));
+    }
+
+    @Benchmark
+    public Histogram linear() {
+        linear.clear();
+        linear.add(data);
+        return linear;
+    }
+
+    @Benchmark
+    public Histogram edges() {
+        edges.clear();
+        edges.add(data);
+        return edges;
+    }
+
+    @Benchmark
+    public Histogram parallelLinear() {
+        linear.clear();
+        linear.parallelAdd(data, 0);
+        return linear;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.benchmark.BenchmarkData;
+import org.epics.util.stats.Statistics;
+import org.epics.util.stats.StatisticsUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serial versus parallel statistics calculation. The parallel version is
+ * forced for all sizes, so that the crossover point can be used to choose
+ * the threshold.
+ *
+ * @author carcassi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ParallelStatisticsBenchmark {
+
+    @Param({"double", "int"})
+    public String type;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private ListNumber data;
+
+    @Setup
+    public void setup() {
+        data = BenchmarkData.randomList(type, size);
+    }
+
+    @Benchmark
+    public Statistics serial() {
+        return StatisticsUtil.statisticsOf(data);
+    }
+
+    @Benchmark
+    public Statistics parallel() {
+        return StatisticsUtil.parallelStatisticsOf(data, 0);
+    }
+}
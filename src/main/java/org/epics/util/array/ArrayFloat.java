@@ -58,6 +58,29 @@ public final class ArrayFloat extends ListFloat implements Serializable {
         };
     }
 
+    @Override
+    public void forEachDouble(ConsumerDouble action) {
+        for (int i = 0; i < array.length; i++) {
+            action.accept(array[i]);
+        }
+    }
+
+    @Override
+    public void forEachLong(ConsumerLong action) {
+        for (int i = 0; i < array.length; i++) {
+            action.accept((long) array[i]);
+        }
+    }
+
+    @Override
+    public double reduceDouble(double identity, BinaryOperatorDouble op) {
+        double result = identity;
+        for (int i = 0; i < array.length; i++) {
+            result = op.apply(result, array[i]);
+        }
+        return result;
+    }
+
     @Override
     public final int size() {
         return array.length;
@@ -68,6 +91,18 @@ public final class ArrayFloat extends ListFloat implements Serializable {
         return array[index];
     }
 
+    @Override
+    public void getFloats(int srcIndex, float[] dst, int dstIndex, int length) {
+        System.arraycopy(array, srcIndex, dst, dstIndex, length);
+    }
+
+    @Override
+    public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = array[srcIndex + i];
+        }
+    }
+
     @Override
     public void setFloat(int index, float value) {
         if (!readOnly) {
@@ -77,6 +112,32 @@ public final class ArrayFloat extends ListFloat implements Serializable {
         }
     }
 
+    @Override
+    public void setDoubles(int index, double[] src, int srcIndex, int length) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Read only list.");
+        }
+        for (int i = 0; i < length; i++) {
+            array[index + i] = (float) src[srcIndex + i];
+        }
+    }
+
+    @Override
+    public void setAll(int index, ListNumber src) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Read only list.");
+        }
+        src.getFloats(0, array, index, src.size());
+    }
+
+    @Override
+    public void fill(int fromIndex, int toIndex, double value) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Read only list.");
+        }
+        Arrays.fill(array, fromIndex, toIndex, (float) value);
+    }
+
     @Override
     public boolean equals(Object obj) {
         
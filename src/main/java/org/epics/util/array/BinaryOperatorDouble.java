@@ -0,0 +1,24 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+/**
+ * An operation on two {@code double}s that produces a {@code double}.
+ * It is used by {@link CollectionNumber#reduceDouble(double, BinaryOperatorDouble)}
+ * to combine the elements of a list.
+ *
+ * @author carcassi
+ */
+public interface BinaryOperatorDouble {
+    
+    /**
+     * Applies the operation to the given values.
+     * 
+     * @param left the first value (the partial result)
+     * @param right the second value (the next element)
+     * @return the result of the operation
+     */
+    double apply(double left, double right);
+}
@@ -4,6 +4,8 @@
  */
 package org.epics.util.array;
 
+import java.util.Arrays;
+
 /**
  * An implementation of a list on top of buffer. The buffer
  * will start at the initial capacity (default 10) and will continue
@@ -13,6 +15,9 @@ package org.epics.util.array;
  */
 public class BufferInt extends ListInt {
     
+    // Some VMs cannot allocate arrays up to Integer.MAX_VALUE
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    
     private int[] data;
     private int endOffset;
 
@@ -75,6 +80,56 @@ public class BufferInt extends ListInt {
         
     }
     
+    /**
+     * Adds the given values, in order. Same as calling {@link #addInt(int) }
+     * for each value, but the buffer grows at most once and the values are
+     * copied in one block.
+     *
+     * @param src the array with the new values
+     * @param srcIndex the position of the first value to add
+     * @param length the number of values to add
+     */
+    public void addAll(int[] src, int srcIndex, int length) {
+        if (srcIndex < 0 || length < 0 || srcIndex + length > src.length) {
+            throw new IndexOutOfBoundsException("Range: " + srcIndex + " - " + (srcIndex + length) + ", Size: " + src.length);
+        }
+        growFor(length);
+        System.arraycopy(src, srcIndex, data, endOffset, length);
+        endOffset += length;
+    }
+
+    /**
+     * Adds all the values of the given list, in order. Same as calling
+     * {@link #addInt(int) } for each value, but the buffer grows at most
+     * once and the values are read in one block.
+     *
+     * @param src the new values
+     */
+    public void addAll(ListNumber src) {
+        int length = src.size();
+        growFor(length);
+        src.getInts(0, data, endOffset, length);
+        endOffset += length;
+    }
+
+    private void growFor(int length) {
+        long required = (long) endOffset + length;
+        if (required < data.length) {
+            return;
+        }
+        // There must always be room for one more value
+        if (required >= MAX_ARRAY_SIZE) {
+            throw new OutOfMemoryError("Buffer cannot hold " + (required + 1) + " values");
+        }
+        // Same final capacity as growing one value at a time, up to
+        // the maximum array size
+        long newSize = Math.max(1, data.length);
+        while (required >= newSize) {
+            newSize *= 2;
+        }
+        data = Arrays.copyOf(data, (int) Math.min(newSize, MAX_ARRAY_SIZE));
+    }
+
     /**
      * Removes all values from the buffer.
      */
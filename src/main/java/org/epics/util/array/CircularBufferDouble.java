@@ -4,6 +4,8 @@
  */
 package org.epics.util.array;
 
+import java.util.Arrays;
+
 /**
  * An implementation of a list on top of a circular buffer. The buffer
  * will start at the initial capacity (default 10) and will continue
@@ -15,10 +17,7 @@ package org.epics.util.array;
 public class CircularBufferDouble extends ListDouble {
     
     private double[] data;
-    private int startOffset;
-    private int endOffset;
-    private final int maxCapacity;
-    private boolean reachedMax;
+    private final CircularBufferIndex ring;
 
     /**
      * Creates a new circular buffer with the given maximum capacity.
@@ -38,19 +37,7 @@ public class CircularBufferDouble extends ListDouble {
      */
     public CircularBufferDouble(int initialCapacity, int maxCapacity) {
         data = new double[initialCapacity];
-        this.maxCapacity = maxCapacity;
-    }
-    
-    private void resize() {
-        int oldSize = data.length;
-        int newSize = oldSize * 2;
-        if (newSize > maxCapacity) {
-            newSize = maxCapacity + 1;
-            reachedMax = true;
-        }
-        double[] newData = new double[newSize];
-        System.arraycopy(data, 0, newData, 0, oldSize);
-        data = newData;
+        ring = new CircularBufferIndex(initialCapacity, maxCapacity);
     }
 
     /**
@@ -58,11 +45,40 @@ public class CircularBufferDouble extends ListDouble {
      */
     @Override
     public double getDouble(int index) {
-        index += startOffset;
-        if (index >= data.length) {
-            index -= data.length;
+        return data[ring.arrayIndex(index)];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+        ring.checkRange(srcIndex, length);
+        int start = ring.arrayIndex(srcIndex);
+        int firstLength = Math.min(length, data.length - start);
+        System.arraycopy(data, start, dst, dstIndex, firstLength);
+        System.arraycopy(data, 0, dst, dstIndex + firstLength, length - firstLength);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void forEachDouble(ConsumerDouble action) {
+        int startOffset = ring.getStartOffset();
+        int endOffset = ring.getEndOffset();
+        if (startOffset <= endOffset) {
+            for (int i = startOffset; i < endOffset; i++) {
+                action.accept(data[i]);
+            }
+        } else {
+            for (int i = startOffset; i < data.length; i++) {
+                action.accept(data[i]);
+            }
+            for (int i = 0; i < endOffset; i++) {
+                action.accept(data[i]);
+            }
         }
-        return data[index];
     }
 
     /**
@@ -70,11 +86,7 @@ public class CircularBufferDouble extends ListDouble {
      */
     @Override
     public int size() {
-        int size = endOffset - startOffset;
-        if (size < 0) {
-            size += data.length;
-        }
-        return size;
+        return ring.size();
     }
 
     /**
@@ -83,29 +95,72 @@ public class CircularBufferDouble extends ListDouble {
      * @param value new value
      */
     public void addDouble(double value) {
-        data[endOffset] = value;
-        endOffset++;
-        
-        // Grow the buffer if needed
-        if (endOffset == data.length && !reachedMax)
-            resize();
-        
-        // Loop over and advance the start point if needed
-        if (endOffset == data.length) {
-            endOffset = 0;
+        data[ring.getEndOffset()] = value;
+        int newLength = ring.commitWrite();
+        if (newLength != data.length) {
+            data = Arrays.copyOf(data, newLength);
         }
-        if (endOffset == startOffset)
-            startOffset++;
-        if (startOffset == data.length)
-            startOffset = 0;
     }
     
+    /**
+     * Adds the given values, in order. Same as calling {@link #addDouble(double) }
+     * for each value, but the buffer grows at most once and the values are
+     * copied in at most two blocks.
+     *
+     * @param src the array with the new values
+     * @param srcIndex the position of the first value to add
+     * @param length the number of values to add
+     */
+    public void addAll(double[] src, int srcIndex, int length) {
+        if (srcIndex < 0 || length < 0 || srcIndex + length > src.length) {
+            throw new IndexOutOfBoundsException("Range: " + srcIndex + " - " + (srcIndex + length) + ", Size: " + src.length);
+        }
+        if (length == 0) {
+            return;
+        }
+        int newLength = ring.growFor(length);
+        if (newLength != data.length) {
+            data = Arrays.copyOf(data, newLength);
+        }
+        int kept = ring.keptOf(length);
+        int start = ring.bulkWriteOffset(length);
+        int firstLength = Math.min(kept, data.length - start);
+        srcIndex += length - kept;
+        System.arraycopy(src, srcIndex, data, start, firstLength);
+        System.arraycopy(src, srcIndex + firstLength, data, 0, kept - firstLength);
+        ring.commitWrites(length);
+    }
+
+    /**
+     * Adds all the values of the given list, in order. Same as calling
+     * {@link #addDouble(double) } for each value, but the buffer grows at
+     * most once and the values are read in at most two blocks.
+     *
+     * @param src the new values
+     */
+    public void addAll(ListNumber src) {
+        int length = src.size();
+        if (length == 0) {
+            return;
+        }
+        int newLength = ring.growFor(length);
+        if (newLength != data.length) {
+            data = Arrays.copyOf(data, newLength);
+        }
+        int kept = ring.keptOf(length);
+        int start = ring.bulkWriteOffset(length);
+        int firstLength = Math.min(kept, data.length - start);
+        int srcIndex = length - kept;
+        src.getDoubles(srcIndex, data, start, firstLength);
+        src.getDoubles(srcIndex + firstLength, data, 0, kept - firstLength);
+        ring.commitWrites(length);
+    }
+
     /**
      * Removes all values from the buffer.
      */
     public void clear() {
-        startOffset = 0;
-        endOffset = 0;
+        ring.clear();
     }
 
     /**
@@ -114,6 +169,6 @@ public class CircularBufferDouble extends ListDouble {
      * @return maximum capacity
      */
     public int getCurrentCapacity() {
-        return reachedMax ? maxCapacity : data.length;
+        return ring.getCurrentCapacity();
     }
 }
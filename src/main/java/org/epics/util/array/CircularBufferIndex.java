@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+/**
+ * The index arithmetic of a circular buffer, shared by the circular buffers
+ * of all types. It keeps track of where the values start and end in the
+ * backing array, and of the length the backing array should have: each
+ * buffer only has to store the values and to resize its array when
+ * the length changes.
+ * <p>
+ * The backing array starts at the initial capacity and doubles until
+ * the max capacity is reached. At that point, it is one element longer
+ * than the max capacity so that a full buffer can be distinguished from
+ * an empty one.
+ *
+ * @author carcassi
+ */
+final class CircularBufferIndex {
+
+    private int startOffset;
+    private int endOffset;
+    private int arrayLength;
+    private final int maxCapacity;
+    private boolean reachedMax;
+
+    CircularBufferIndex(int initialCapacity, int maxCapacity) {
+        this.arrayLength = initialCapacity;
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * The length the backing array should have.
+     */
+    int getArrayLength() {
+        return arrayLength;
+    }
+
+    /**
+     * The position in the backing array of the oldest value.
+     */
+    int getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * The position in the backing array where the next value
+     * should be written.
+     */
+    int getEndOffset() {
+        return endOffset;
+    }
+
+    int size() {
+        int size = endOffset - startOffset;
+        if (size < 0) {
+            size += arrayLength;
+        }
+        return size;
+    }
+
+    /**
+     * The position in the backing array of the element at the given index.
+     */
+    int arrayIndex(int index) {
+        index += startOffset;
+        if (index >= arrayLength) {
+            index -= arrayLength;
+        }
+        return index;
+    }
+
+    /**
+     * Throws an exception if the range does not fall within the buffer.
+     */
+    void checkRange(int srcIndex, int length) {
+        if (srcIndex < 0 || length < 0 || srcIndex + length > size()) {
+            throw new IndexOutOfBoundsException("Range: " + srcIndex + " - " + (srcIndex + length) + ", Size: " + size());
+        }
+    }
+
+    /**
+     * Advances the end after a value was written at the end offset,
+     * dropping the oldest value if the buffer is full. The backing array
+     * needs to be resized, keeping the current content, if the length
+     * returned is different.
+     *
+     * @return the new length of the backing array
+     */
+    int commitWrite() {
+        endOffset++;
+
+        // Grow the buffer if needed
+        if (endOffset == arrayLength && !reachedMax) {
+            int newLength = arrayLength * 2;
+            if (newLength > maxCapacity) {
+                newLength = maxCapacity + 1;
+                reachedMax = true;
+            }
+            arrayLength = newLength;
+        }
+
+        // Loop over and advance the start point if needed
+        if (endOffset == arrayLength) {
+            endOffset = 0;
+        }
+        if (endOffset == startOffset)
+            startOffset++;
+        if (startOffset == arrayLength)
+            startOffset = 0;
+        return arrayLength;
+    }
+
+    /**
+     * Grows the backing array to the length it would reach if the given
+     * number of values were added one at a time. Only the length changes:
+     * the values are written at {@link #bulkWriteOffset(int) } and then
+     * committed with {@link #commitWrites(int) }. Before the max capacity
+     * is reached the buffer never wraps around, so the backing array can
+     * be resized keeping the current content.
+     *
+     * @return the new length of the backing array
+     */
+    int growFor(int n) {
+        while (!reachedMax && size() + n >= arrayLength) {
+            int newLength = Math.max(1, arrayLength * 2);
+            if (newLength > maxCapacity) {
+                newLength = maxCapacity + 1;
+                reachedMax = true;
+            }
+            arrayLength = newLength;
+        }
+        return arrayLength;
+    }
+
+    /**
+     * The number of values that remain in the buffer if the given number
+     * of values is added: if more values are added than the buffer can
+     * hold, only the newest are kept.
+     */
+    int keptOf(int n) {
+        return Math.min(n, arrayLength - 1);
+    }
+
+    /**
+     * The position in the backing array where the first of the values kept
+     * out of the given number of values should be written. The values
+     * continue from there, looping over at the end of the backing array.
+     */
+    int bulkWriteOffset(int n) {
+        return (endOffset + (n - keptOf(n)) % arrayLength) % arrayLength;
+    }
+
+    /**
+     * Advances the end after the given number of values were written,
+     * dropping the oldest values if the buffer is full. Leaves the buffer
+     * in the same state as calling {@link #commitWrite() } once per value.
+     */
+    void commitWrites(int n) {
+        int newSize = Math.min(size() + keptOf(n), arrayLength - 1);
+        endOffset = (endOffset + n % arrayLength) % arrayLength;
+        startOffset = endOffset - newSize;
+        if (startOffset < 0) {
+            startOffset += arrayLength;
+        }
+    }
+
+    void clear() {
+        startOffset = 0;
+        endOffset = 0;
+    }
+
+    int getCurrentCapacity() {
+        return reachedMax ? maxCapacity : arrayLength;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import java.util.Arrays;
+
+/**
+ * An implementation of a list on top of a circular buffer. The buffer
+ * will start at the initial capacity (default 10) and will continue
+ * to grow until the max capacity is reached. At that point, it will
+ * start to replace the oldest value with a newer one.
+ *
+ * @author carcassi
+ */
+public class CircularBufferInt extends ListInt {
+    
+    private int[] data;
+    private final CircularBufferIndex ring;
+
+    /**
+     * Creates a new circular buffer with the given maximum capacity.
+     * 
+     * @param maxCapacity maximum capacity
+     */
+    public CircularBufferInt(int maxCapacity) {
+        this(Math.min(10, maxCapacity), maxCapacity);
+    }
+
+    /**
+     * Creates a new circular buffer with the given initial and maximum
+     * capacity.
+     * 
+     * @param initialCapacity initial capacity
+     * @param maxCapacity  maximum capacity
+     */
+    public CircularBufferInt(int initialCapacity, int maxCapacity) {
+        data = new int[initialCapacity];
+        ring = new CircularBufferIndex(initialCapacity, maxCapacity);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getInt(int index) {
+        return data[ring.arrayIndex(index)];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void getInts(int srcIndex, int[] dst, int dstIndex, int length) {
+        ring.checkRange(srcIndex, length);
+        int start = ring.arrayIndex(srcIndex);
+        int firstLength = Math.min(length, data.length - start);
+        System.arraycopy(data, start, dst, dstIndex, firstLength);
+        System.arraycopy(data, 0, dst, dstIndex + firstLength, length - firstLength);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+        ring.checkRange(srcIndex, length);
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = data[ring.arrayIndex(srcIndex + i)];
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void forEachDouble(ConsumerDouble action) {
+        int startOffset = ring.getStartOffset();
+        int endOffset = ring.getEndOffset();
+        if (startOffset <= endOffset) {
+            for (int i = startOffset; i < endOffset; i++) {
+                action.accept(data[i]);
+            }
+        } else {
+            for (int i = startOffset; i < data.length; i++) {
+                action.accept(data[i]);
+            }
+            for (int i = 0; i < endOffset; i++) {
+                action.accept(data[i]);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return ring.size();
+    }
+
+    /**
+     * Adds a new value.
+     * 
+     * @param value new value
+     */
+    public void addInt(int value) {
+        data[ring.getEndOffset()] = value;
+        int newLength = ring.commitWrite();
+        if (newLength != data.length) {
+            data = Arrays.copyOf(data, newLength);
+        }
+    }
+    
+    /**
+     * Removes all values from the buffer.
+     */
+    public void clear() {
+        ring.clear();
+    }
+
+    /**
+     * The maximum capacity for this circular buffer.
+     * 
+     * @return maximum capacity
+     */
+    public int getCurrentCapacity() {
+        return ring.getCurrentCapacity();
+    }
+}
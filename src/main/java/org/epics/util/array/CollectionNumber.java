@@ -32,4 +32,39 @@ public interface CollectionNumber {
      * @return the number of elements in the collection
      */
     int size();
+    
+    /**
+     * Performs the given action on each element of the collection, in
+     * iteration order, casting each element to a double. This can be faster
+     * than using the iterator, since implementations can loop directly on
+     * their data. Implementations that cannot do better can use
+     * {@link CollectionNumbers#forEachDouble(CollectionNumber, ConsumerDouble) }.
+     * 
+     * @param action the action to perform on each element
+     */
+    void forEachDouble(ConsumerDouble action);
+    
+    /**
+     * Performs the given action on each element of the collection, in
+     * iteration order, casting each element to a long. This can be faster
+     * than using the iterator, since implementations can loop directly on
+     * their data. Implementations that cannot do better can use
+     * {@link CollectionNumbers#forEachLong(CollectionNumber, ConsumerLong) }.
+     * 
+     * @param action the action to perform on each element
+     */
+    void forEachLong(ConsumerLong action);
+    
+    /**
+     * Combines all the elements of the collection, in iteration order,
+     * casting each element to a double. The result is
+     * {@code op.apply(...op.apply(op.apply(identity, e0), e1)..., eN)}.
+     * Implementations that cannot do better than the iterator can use
+     * {@link CollectionNumbers#reduceDouble(CollectionNumber, double, BinaryOperatorDouble) }.
+     * 
+     * @param identity the starting value
+     * @param op the operation that combines the partial result with the next element
+     * @return the result of the reduction
+     */
+    double reduceDouble(double identity, BinaryOperatorDouble op);
 }
@@ -169,6 +169,10 @@ public class CollectionNumbers {
      */
     public static float[] floatArrayCopyOf(CollectionNumber coll) {
         float[] data = new float[coll.size()];
+        if (coll instanceof ListNumber) {
+            ((ListNumber) coll).getFloats(0, data, 0, data.length);
+            return data;
+        }
         IteratorNumber iter = coll.iterator();
         int index = 0;
         while (iter.hasNext()) {
@@ -186,6 +190,10 @@ public class CollectionNumbers {
      */
     public static double[] doubleArrayCopyOf(CollectionNumber coll) {
         double[] data = new double[coll.size()];
+        if (coll instanceof ListNumber) {
+            ((ListNumber) coll).getDoubles(0, data, 0, data.length);
+            return data;
+        }
         IteratorNumber iter = coll.iterator();
         int index = 0;
         while (iter.hasNext()) {
@@ -203,6 +211,10 @@ public class CollectionNumbers {
      */
     public static byte[] byteArrayCopyOf(CollectionNumber coll) {
         byte[] data = new byte[coll.size()];
+        if (coll instanceof ListNumber) {
+            ((ListNumber) coll).getBytes(0, data, 0, data.length);
+            return data;
+        }
         IteratorNumber iter = coll.iterator();
         int index = 0;
         while (iter.hasNext()) {
@@ -220,6 +232,10 @@ public class CollectionNumbers {
      */
     public static short[] shortArrayCopyOf(CollectionNumber coll) {
         short[] data = new short[coll.size()];
+        if (coll instanceof ListNumber) {
+            ((ListNumber) coll).getShorts(0, data, 0, data.length);
+            return data;
+        }
         IteratorNumber iter = coll.iterator();
         int index = 0;
         while (iter.hasNext()) {
@@ -237,6 +253,10 @@ public class CollectionNumbers {
      */
     public static int[] intArrayCopyOf(CollectionNumber coll) {
         int[] data = new int[coll.size()];
+        if (coll instanceof ListNumber) {
+            ((ListNumber) coll).getInts(0, data, 0, data.length);
+            return data;
+        }
         IteratorNumber iter = coll.iterator();
         int index = 0;
         while (iter.hasNext()) {
@@ -254,6 +274,10 @@ public class CollectionNumbers {
      */
     public static long[] longArrayCopyOf(CollectionNumber coll) {
         long[] data = new long[coll.size()];
+        if (coll instanceof ListNumber) {
+            ((ListNumber) coll).getLongs(0, data, 0, data.length);
+            return data;
+        }
         IteratorNumber iter = coll.iterator();
         int index = 0;
         while (iter.hasNext()) {
@@ -358,4 +382,56 @@ public class CollectionNumbers {
         }
         return longArrayCopyOf(coll);
     }
+
+    /**
+     * Performs the given action on each element of the collection, casting
+     * each element to a double, using the iterator of the collection.
+     * Implementations of {@link CollectionNumber#forEachDouble(ConsumerDouble) }
+     * that cannot loop directly on their data can use this method.
+     * 
+     * @param coll the collection
+     * @param action the action to perform on each element
+     */
+    public static void forEachDouble(CollectionNumber coll, ConsumerDouble action) {
+        IteratorNumber iter = coll.iterator();
+        while (iter.hasNext()) {
+            action.accept(iter.nextDouble());
+        }
+    }
+    
+    /**
+     * Performs the given action on each element of the collection, casting
+     * each element to a long, using the iterator of the collection.
+     * Implementations of {@link CollectionNumber#forEachLong(ConsumerLong) }
+     * that cannot loop directly on their data can use this method.
+     * 
+     * @param coll the collection
+     * @param action the action to perform on each element
+     */
+    public static void forEachLong(CollectionNumber coll, ConsumerLong action) {
+        IteratorNumber iter = coll.iterator();
+        while (iter.hasNext()) {
+            action.accept(iter.nextLong());
+        }
+    }
+    
+    /**
+     * Combines all the elements of the collection, casting each element
+     * to a double, using the iterator of the collection.
+     * Implementations of {@link CollectionNumber#reduceDouble(double, BinaryOperatorDouble) }
+     * that cannot loop directly on their data can use this method.
+     * 
+     * @param coll the collection
+     * @param identity the starting value
+     * @param op the operation that combines the partial result with the next element
+     * @return the result of the reduction
+     */
+    public static double reduceDouble(CollectionNumber coll, double identity, BinaryOperatorDouble op) {
+        double result = identity;
+        IteratorNumber iter = coll.iterator();
+        while (iter.hasNext()) {
+            result = op.apply(result, iter.nextDouble());
+        }
+        return result;
+    }
 }
@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A circular buffer of fixed capacity that can be written by one thread
+ * and read by any number of other threads without locking.
+ * <p>
+ * Each value added is assigned a sequence number, starting from 0. The
+ * writer claims the sequence, stores the value and then publishes the
+ * sequence; it never waits for the readers. Readers copy the published
+ * values and then check the claimed sequence: the values that the writer
+ * may have overwritten in the meantime are discarded. Readers therefore never block
+ * the writer, but a reader that is slower than the writer loses values.
+ * <p>
+ * Only one thread at a time can call {@link #addDouble(double) }.
+ *
+ * @author carcassi
+ */
+public class ConcurrentCircularBufferDouble {
+
+    private final AtomicLongArray data;
+    private final int capacity;
+    // Number of values whose write has started
+    private final AtomicLong claimed = new AtomicLong();
+    // Number of values whose write has completed
+    private final AtomicLong published = new AtomicLong();
+    // Only accessed by the writer
+    private long nextSequence;
+
+    /**
+     * Creates a new buffer with the given capacity.
+     *
+     * @param capacity the number of values kept in the buffer
+     */
+    public ConcurrentCircularBufferDouble(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive (was " + capacity + " )");
+        }
+        this.capacity = capacity;
+        this.data = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Adds a new value, overwriting the oldest if the buffer is full. This
+     * method never blocks.
+     *
+     * @param value new value
+     */
+    public void addDouble(double value) {
+        // The ordered writes make sure that a reader that sees the new
+        // value also sees the new claimed sequence
+        claimed.lazySet(nextSequence + 1);
+        data.lazySet((int) (nextSequence % capacity), Double.doubleToRawLongBits(value));
+        nextSequence++;
+        published.lazySet(nextSequence);
+    }
+
+    /**
+     * The sequence number that the next value added will have. This is
+     * also the total number of values added to the buffer.
+     *
+     * @return the next sequence number
+     */
+    public long getSequence() {
+        return published.get();
+    }
+
+    /**
+     * The maximum number of values kept in the buffer.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns a copy of the values currently in the buffer, from the
+     * oldest to the newest.
+     *
+     * @return a new list
+     */
+    public ListDouble snapshot() {
+        long end = published.get();
+        long start = Math.max(0, end - capacity);
+        double[] values = new double[(int) (end - start)];
+        int skip = copy(start, values, 0, values.length);
+        if (skip != 0) {
+            values = Arrays.copyOfRange(values, skip, values.length);
+        }
+        return new ArrayDouble(values);
+    }
+
+    /**
+     * Copies the values with the given sequence numbers, and returns how many
+     * values at the beginning may have been overwritten during the copy.
+     */
+    private int copy(long start, double[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = Double.longBitsToDouble(data.get((int) ((start + i) % capacity)));
+        }
+        // A value is overwritten when the write for the value capacity
+        // positions later has started
+        long firstValid = claimed.get() - capacity;
+        if (firstValid > start) {
+            return (int) Math.min(firstValid - start, length);
+        }
+        return 0;
+    }
+
+    /**
+     * Creates a new reader that will return the values added from
+     * now on.
+     *
+     * @return a new reader
+     */
+    public Reader newReader() {
+        return new Reader(published.get());
+    }
+
+    /**
+     * Reads the values of the buffer in order. Each reader has its own
+     * position, and is meant to be used by a single thread.
+     */
+    public class Reader {
+
+        private long cursor;
+        private long lostCount;
+
+        private Reader(long cursor) {
+            this.cursor = cursor;
+        }
+
+        /**
+         * Copies the values added since the previous read into the given
+         * array, up to the given length.
+         *
+         * @param dst the destination array
+         * @param dstIndex starting position in the destination array
+         * @param length maximum number of values to read
+         * @return the number of values read
+         */
+        public int read(double[] dst, int dstIndex, int length) {
+            long end = published.get();
+            long start = Math.max(cursor, end - capacity);
+            lostCount += start - cursor;
+            int n = (int) Math.min(length, end - start);
+            int skip = copy(start, dst, dstIndex, n);
+            if (skip != 0) {
+                System.arraycopy(dst, dstIndex + skip, dst, dstIndex, n - skip);
+                lostCount += skip;
+            }
+            cursor = start + n;
+            return n - skip;
+        }
+
+        /**
+         * Returns all the values added since the previous read.
+         *
+         * @return a new list
+         */
+        public ListDouble poll() {
+            long available = Math.min(published.get() - cursor, capacity);
+            double[] values = new double[(int) available];
+            int n = read(values, 0, values.length);
+            if (n != values.length) {
+                values = Arrays.copyOf(values, n);
+            }
+            return new ArrayDouble(values);
+        }
+
+        /**
+         * The sequence number of the next value this reader will return.
+         *
+         * @return the position of the reader
+         */
+        public long getCursor() {
+            return cursor;
+        }
+
+        /**
+         * The number of values that were overwritten before this reader
+         * could read them.
+         *
+         * @return the number of values lost
+         */
+        public long getLostCount() {
+            return lostCount;
+        }
+    }
+}
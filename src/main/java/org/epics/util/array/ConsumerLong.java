@@ -0,0 +1,22 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+/**
+ * An operation that accepts a single {@code long} and returns no result.
+ * It is used by {@link CollectionNumber#forEachLong(ConsumerLong)} to
+ * iterate over the elements of a list without an iterator.
+ *
+ * @author carcassi
+ */
+public interface ConsumerLong {
+    
+    /**
+     * Performs the operation on the given value.
+     * 
+     * @param value the input value
+     */
+    void accept(long value);
+}
@@ -0,0 +1,374 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fast Fourier transform for a given number of points.
+ * <p>
+ * A plan precomputes everything that depends only on the size of the
+ * transform (the twiddle factors, the bit reversal permutation, the chirp
+ * for sizes that are not powers of two), so that repeated transforms of
+ * the same size only do the arithmetic. Plans are cached and shared:
+ * use {@link #forSize(int) } to get one. Plans are thread-safe.
+ * All power of two plans are kept, while for other sizes only the most
+ * recently used plans are: keep a reference to the plan to make sure
+ * it is not recomputed.
+ * <p>
+ * Sizes that are powers of two use an iterative radix-2 algorithm. All
+ * other sizes use Bluestein's algorithm, which expresses the transform as
+ * a convolution computed with power of two transforms: they are still
+ * O(n log n), but a few times slower than a power of two of similar size.
+ * <p>
+ * The transforms operate on the caller's arrays, and do not allocate once
+ * the plan exists. The forward transform is not normalized
+ * (X[k] = sum x[j] e^(-2 pi i j k / n)), while the inverse is scaled by
+ * 1/n, so that the two are one the inverse of the other.
+ *
+ * @author carcassi
+ */
+public final class FFT {
+
+    // Power of two plans, by exponent
+    private static final AtomicReferenceArray<FFT> powerOfTwoPlans = new AtomicReferenceArray<>(31);
+
+    /**
+     * The number of plans kept for sizes that are not powers of two.
+     * Each holds a few arrays of the size of the transform, plus scratch
+     * for each thread that used it, so they are not kept for every size.
+     */
+    static final int MAX_CACHED_PLANS = 16;
+
+    // Least recently used first
+    private static final Map<Integer, FFT> plans = new LinkedHashMap<Integer, FFT>(MAX_CACHED_PLANS, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, FFT> eldest) {
+            return size() > MAX_CACHED_PLANS;
+        }
+    };
+
+    /**
+     * Returns the plan for transforms of the given size.
+     *
+     * @param size the number of points; must be positive
+     * @return the plan
+     */
+    public static FFT forSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("FFT size must be positive (was " + size + ")");
+        }
+        if (Integer.bitCount(size) == 1) {
+            int exponent = Integer.numberOfTrailingZeros(size);
+            FFT plan = powerOfTwoPlans.get(exponent);
+            if (plan == null) {
+                powerOfTwoPlans.compareAndSet(exponent, null, new FFT(size));
+                plan = powerOfTwoPlans.get(exponent);
+            }
+            return plan;
+        }
+        synchronized (plans) {
+            FFT plan = plans.get(size);
+            if (plan == null) {
+                plan = new FFT(size);
+                plans.put(size, plan);
+            }
+            return plan;
+        }
+    }
+
+    private final int size;
+    // e^(-2 pi i k / n) for k in [0, n/2)
+    private final double[] cos;
+    private final double[] sin;
+    // Radix-2 only
+    private final int[] bitReverse;
+    // Bluestein only
+    private final FFT convolution;
+    private final double[] chirpCos;
+    private final double[] chirpSin;
+    private final double[] filterRe;
+    private final double[] filterIm;
+    private final ThreadLocal<double[][]> scratch;
+
+    private FFT(int size) {
+        this.size = size;
+        int half = size / 2;
+        cos = new double[half];
+        sin = new double[half];
+        for (int k = 0; k < half; k++) {
+            double angle = 2 * Math.PI * k / size;
+            cos[k] = Math.cos(angle);
+            sin[k] = -Math.sin(angle);
+        }
+
+        if (Integer.bitCount(size) == 1) {
+            bitReverse = new int[size];
+            int bits = Integer.numberOfTrailingZeros(size);
+            for (int i = 0; i < size; i++) {
+                bitReverse[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+            }
+            convolution = null;
+            chirpCos = null;
+            chirpSin = null;
+            filterRe = null;
+            filterIm = null;
+            scratch = null;
+        } else {
+            bitReverse = null;
+            final int m = Integer.highestOneBit(2 * size - 1) << 1;
+            convolution = forSize(m);
+
+            // w[k] = e^(-pi i k^2 / n); k^2 is taken modulo 2n to keep
+            // the argument small and precise
+            chirpCos = new double[size];
+            chirpSin = new double[size];
+            for (int k = 0; k < size; k++) {
+                double angle = Math.PI * (((long) k * k) % (2L * size)) / size;
+                chirpCos[k] = Math.cos(angle);
+                chirpSin[k] = -Math.sin(angle);
+            }
+
+            // Transform of the filter conj(w[j]), symmetric around 0
+            filterRe = new double[m];
+            filterIm = new double[m];
+            filterRe[0] = chirpCos[0];
+            filterIm[0] = -chirpSin[0];
+            for (int j = 1; j < size; j++) {
+                filterRe[j] = chirpCos[j];
+                filterIm[j] = -chirpSin[j];
+                filterRe[m - j] = chirpCos[j];
+                filterIm[m - j] = -chirpSin[j];
+            }
+            convolution.radix2(filterRe, filterIm);
+
+            scratch = new ThreadLocal<double[][]>() {
+                @Override
+                protected double[][] initialValue() {
+                    return new double[2][m];
+                }
+            };
+        }
+    }
+
+    /**
+     * The number of points of the transform.
+     *
+     * @return the size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    private void checkLength(double[] array, String name) {
+        if (array.length < size) {
+            throw new IllegalArgumentException(name + " array has length " + array.length + " but the transform has size " + size);
+        }
+    }
+
+    /**
+     * Computes the forward transform in place. Only the first size
+     * elements of the arrays are used.
+     *
+     * @param re the real part
+     * @param im the imaginary part
+     */
+    public void transform(double[] re, double[] im) {
+        checkLength(re, "Real");
+        checkLength(im, "Imaginary");
+        if (bitReverse != null) {
+            radix2(re, im);
+        } else {
+            bluestein(re, im);
+        }
+    }
+
+    /**
+     * Computes the inverse transform in place, including the 1/n
+     * normalization. Only the first size elements of the arrays are used.
+     *
+     * @param re the real part
+     * @param im the imaginary part
+     */
+    public void inverse(double[] re, double[] im) {
+        // Swapping real and imaginary part before and after the forward
+        // transform gives the unnormalized inverse
+        transform(im, re);
+        double scale = 1.0 / size;
+        for (int i = 0; i < size; i++) {
+            re[i] *= scale;
+            im[i] *= scale;
+        }
+    }
+
+    /**
+     * Computes the forward transform of the given data, storing the
+     * result in the given arrays.
+     *
+     * @param re the real part
+     * @param im the imaginary part; null if the data is real
+     * @param resultRe the array where to store the real part of the result
+     * @param resultIm the array where to store the imaginary part of the result
+     */
+    public void transform(ListNumber re, ListNumber im, double[] resultRe, double[] resultIm) {
+        checkLength(resultRe, "Real");
+        checkLength(resultIm, "Imaginary");
+        if (im == null) {
+            realTransform(re, resultRe, resultIm);
+            return;
+        }
+        checkSize(re);
+        checkSize(im);
+        re.getDoubles(0, resultRe, 0, size);
+        im.getDoubles(0, resultIm, 0, size);
+        transform(resultRe, resultIm);
+    }
+
+    private void checkSize(ListNumber data) {
+        if (data.size() != size) {
+            throw new IllegalArgumentException("Data has size " + data.size() + " but the transform has size " + size);
+        }
+    }
+
+    /**
+     * Computes the forward transform of real data, storing the result
+     * in the given arrays. All n values of the transform are returned,
+     * even though the second half is the complex conjugate of the first.
+     * <p>
+     * For even sizes, the data is packed into a complex transform of half
+     * the size, which takes about half the time of the complex transform.
+     *
+     * @param data the real data
+     * @param resultRe the array where to store the real part of the result
+     * @param resultIm the array where to store the imaginary part of the result
+     */
+    public void realTransform(ListNumber data, double[] resultRe, double[] resultIm) {
+        checkSize(data);
+        checkLength(resultRe, "Real");
+        checkLength(resultIm, "Imaginary");
+        data.getDoubles(0, resultRe, 0, size);
+        if (size % 2 != 0) {
+            for (int i = 0; i < size; i++) {
+                resultIm[i] = 0;
+            }
+            transform(resultRe, resultIm);
+            return;
+        }
+
+        // z[j] = x[2j] + i x[2j + 1]
+        int half = size / 2;
+        for (int j = 0; j < half; j++) {
+            resultIm[j] = resultRe[2 * j + 1];
+            resultRe[j] = resultRe[2 * j];
+        }
+        forSize(half).transform(resultRe, resultIm);
+
+        // X[k] = E[k] + w^k O[k], where E and O are the transforms of the
+        // even and odd samples: E[k] = (Z[k] + conj(Z[h - k])) / 2 and
+        // O[k] = (Z[k] - conj(Z[h - k])) / 2i. X[k] and X[h - k] are
+        // computed together as they need the same two values of Z.
+        double z0 = resultRe[0];
+        resultRe[0] = z0 + resultIm[0];
+        resultRe[half] = z0 - resultIm[0];
+        resultIm[0] = 0;
+        resultIm[half] = 0;
+        for (int k = 1; k <= half / 2; k++) {
+            int j = half - k;
+            double a = resultRe[k];
+            double b = resultIm[k];
+            double c = resultRe[j];
+            double d = resultIm[j];
+            double evenRe = (a + c) / 2;
+            double evenIm = (b - d) / 2;
+            double oddRe = (b + d) / 2;
+            double oddIm = (c - a) / 2;
+            resultRe[k] = evenRe + cos[k] * oddRe - sin[k] * oddIm;
+            resultIm[k] = evenIm + cos[k] * oddIm + sin[k] * oddRe;
+            // For h - k, both E and O are conjugated
+            resultRe[j] = evenRe + cos[j] * oddRe + sin[j] * oddIm;
+            resultIm[j] = -evenIm - cos[j] * oddIm + sin[j] * oddRe;
+        }
+
+        // The second half is the conjugate of the first
+        for (int k = 1; k < half; k++) {
+            resultRe[size - k] = resultRe[k];
+            resultIm[size - k] = -resultIm[k];
+        }
+    }
+
+    private void radix2(double[] re, double[] im) {
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            int j = bitReverse[i];
+            if (j > i) {
+                double tmp = re[i];
+                re[i] = re[j];
+                re[j] = tmp;
+                tmp = im[i];
+                im[i] = im[j];
+                im[j] = tmp;
+            }
+        }
+
+        for (int length = 2; length <= n; length <<= 1) {
+            int half = length >> 1;
+            int step = n / length;
+            for (int start = 0; start < n; start += length) {
+                for (int k = 0; k < half; k++) {
+                    double wRe = cos[k * step];
+                    double wIm = sin[k * step];
+                    int a = start + k;
+                    int b = a + half;
+                    double xRe = re[b] * wRe - im[b] * wIm;
+                    double xIm = re[b] * wIm + im[b] * wRe;
+                    re[b] = re[a] - xRe;
+                    im[b] = im[a] - xIm;
+                    re[a] += xRe;
+                    im[a] += xIm;
+                }
+            }
+        }
+    }
+
+    private void bluestein(double[] re, double[] im) {
+        // X[k] = w[k] * sum (x[j] w[j]) conj(w[k - j]),
+        // where w[k] = e^(-pi i k^2 / n)
+        double[][] buffers = scratch.get();
+        double[] aRe = buffers[0];
+        double[] aIm = buffers[1];
+        int m = aRe.length;
+        for (int k = 0; k < size; k++) {
+            aRe[k] = re[k] * chirpCos[k] - im[k] * chirpSin[k];
+            aIm[k] = re[k] * chirpSin[k] + im[k] * chirpCos[k];
+        }
+        for (int k = size; k < m; k++) {
+            aRe[k] = 0;
+            aIm[k] = 0;
+        }
+        convolution.radix2(aRe, aIm);
+
+        // Multiply by the transform of the filter and conjugate, so that
+        // the forward transform computes the inverse
+        for (int k = 0; k < m; k++) {
+            double real = aRe[k] * filterRe[k] - aIm[k] * filterIm[k];
+            double imag = aRe[k] * filterIm[k] + aIm[k] * filterRe[k];
+            aRe[k] = real;
+            aIm[k] = -imag;
+        }
+        convolution.radix2(aRe, aIm);
+
+        double scale = 1.0 / m;
+        for (int k = 0; k < size; k++) {
+            double real = aRe[k] * scale;
+            double imag = -aIm[k] * scale;
+            re[k] = real * chirpCos[k] - imag * chirpSin[k];
+            im[k] = real * chirpSin[k] + imag * chirpCos[k];
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+/**
+ * A finite impulse response filter that processes a stream of values,
+ * one block at a time: y[n] = sum h[j] * x[n - j].
+ * <p>
+ * The filter keeps the last values it has seen, so that consecutive
+ * blocks are filtered as if they were one continuous stream. The values
+ * before the first one are taken to be zero. Blocks are read in chunks
+ * through {@link ListNumber#getDoubles(int, double[], int, int) }, which
+ * is efficient for arrays and circular buffers, and no memory is
+ * allocated after construction.
+ * <p>
+ * The filter is not thread-safe.
+ *
+ * @author carcassi
+ */
+public class FirFilter {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    // The coefficients in reverse order, so that each output is a dot
+    // product with consecutive values of the window
+    private final double[] reversed;
+    // The last (order) values seen, followed by the values being filtered
+    private final double[] window;
+    private final int order;
+
+    /**
+     * Creates a new filter with the given coefficients.
+     *
+     * @param coefficients the impulse response of the filter; must not be empty
+     */
+    public FirFilter(ListNumber coefficients) {
+        if (coefficients.size() == 0) {
+            throw new IllegalArgumentException("Filter coefficients must not be empty");
+        }
+        int size = coefficients.size();
+        reversed = new double[size];
+        for (int i = 0; i < size; i++) {
+            reversed[i] = coefficients.getDouble(size - 1 - i);
+        }
+        order = size - 1;
+        window = new double[order + BLOCK_SIZE];
+    }
+
+    /**
+     * The number of coefficients of the filter.
+     *
+     * @return the number of coefficients
+     */
+    public int getSize() {
+        return reversed.length;
+    }
+
+    /**
+     * Filters the next value of the stream.
+     *
+     * @param value the next input value
+     * @return the next output value
+     */
+    public double filter(double value) {
+        window[order] = value;
+        double output = 0;
+        for (int t = 0; t <= order; t++) {
+            output += reversed[t] * window[t];
+        }
+        System.arraycopy(window, 1, window, 0, order);
+        return output;
+    }
+
+    /**
+     * Filters the next block of the stream, storing the output in the
+     * given array.
+     *
+     * @param input the next input values
+     * @param dst the array where to store the output values
+     * @param dstIndex the position of the first output value
+     */
+    public void filter(ListNumber input, double[] dst, int dstIndex) {
+        int length = input.size();
+        if (dstIndex < 0 || dstIndex + length > dst.length) {
+            throw new IndexOutOfBoundsException("Range: " + dstIndex + " - " + (dstIndex + length) + ", Size: " + dst.length);
+        }
+        for (int from = 0; from < length; from += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, length - from);
+            input.getDoubles(from, window, order, n);
+            for (int i = 0; i < n; i++) {
+                double output = 0;
+                for (int t = 0; t <= order; t++) {
+                    output += reversed[t] * window[i + t];
+                }
+                dst[dstIndex + from + i] = output;
+            }
+            // Keep the last values for the next block
+            System.arraycopy(window, n, window, 0, order);
+        }
+    }
+
+    /**
+     * Filters the next block of the stream.
+     *
+     * @param input the next input values
+     * @return the output values
+     */
+    public ArrayDouble filter(ListNumber input) {
+        double[] result = new double[input.size()];
+        filter(input, result, 0);
+        return new ArrayDouble(result);
+    }
+
+    /**
+     * Forgets the values seen, as if the filter was just created.
+     */
+    public void reset() {
+        for (int i = 0; i < order; i++) {
+            window[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A chain of element-wise operations that is evaluated in a single pass.
+ * <p>
+ * The lazy views returned by {@link ListMath} recompute every stage of
+ * the chain each time an element is read. An expression, instead, is
+ * evaluated eagerly: the data is processed in blocks small enough to
+ * stay in cache, and all operations are applied to a block before it is
+ * copied to the result array. No intermediate list or array of the full
+ * size is created.
+ * <pre>
+ * ArrayDouble result = ListMath.expression(a).multiply(b).add(c).rescale(k, o).evaluate(buffer);
+ * </pre>
+ * The operands are read when the expression is evaluated, so an
+ * expression can be evaluated multiple times as the data changes (e.g.
+ * once per frame, into the same array). The result array can be one of
+ * the operands: each block is read before it is overwritten.
+ *
+ * @author carcassi
+ */
+public final class ListExpression {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    private static final int ADD = 0;
+    private static final int SUBTRACT = 1;
+    private static final int MULTIPLY = 2;
+    private static final int DIVIDE = 3;
+    private static final int RESCALE = 4;
+    private static final int INVERSE_RESCALE = 5;
+    private static final int POW = 6;
+
+    /**
+     * An operation of the chain: either with a list or with constants.
+     */
+    private static class Step {
+
+        private final int operation;
+        private final ListNumber operand;
+        private final double a;
+        private final double b;
+
+        Step(int operation, ListNumber operand, double a, double b) {
+            this.operation = operation;
+            this.operand = operand;
+            this.a = a;
+            this.b = b;
+        }
+    }
+
+    private final ListNumber data;
+    private final List<Step> steps = new ArrayList<>();
+
+    ListExpression(ListNumber data) {
+        this.data = data;
+    }
+
+    private ListExpression listStep(int operation, ListNumber operand, String name) {
+        if (data.size() != operand.size()) {
+            throw new IllegalArgumentException("Can't " + name + " ListNumbers of different size (" + data.size() + " - " + operand.size() + ")");
+        }
+        steps.add(new Step(operation, operand, 0, 0));
+        return this;
+    }
+
+    /**
+     * Adds the elements of the given list.
+     *
+     * @param operand a list of the same size
+     * @return this expression
+     */
+    public ListExpression add(ListNumber operand) {
+        return listStep(ADD, operand, "sum");
+    }
+
+    /**
+     * Subtracts the elements of the given list.
+     *
+     * @param operand a list of the same size
+     * @return this expression
+     */
+    public ListExpression subtract(ListNumber operand) {
+        return listStep(SUBTRACT, operand, "subtract");
+    }
+
+    /**
+     * Multiplies by the elements of the given list.
+     *
+     * @param operand a list of the same size
+     * @return this expression
+     */
+    public ListExpression multiply(ListNumber operand) {
+        return listStep(MULTIPLY, operand, "multiply");
+    }
+
+    /**
+     * Divides by the elements of the given list.
+     *
+     * @param operand a list of the same size
+     * @return this expression
+     */
+    public ListExpression divide(ListNumber operand) {
+        return listStep(DIVIDE, operand, "divide");
+    }
+
+    /**
+     * Adds a constant.
+     *
+     * @param offset the additive constant
+     * @return this expression
+     */
+    public ListExpression add(double offset) {
+        return rescale(1.0, offset);
+    }
+
+    /**
+     * Multiplies by a constant.
+     *
+     * @param factor the multiplicative constant
+     * @return this expression
+     */
+    public ListExpression multiply(double factor) {
+        return rescale(factor, 0.0);
+    }
+
+    /**
+     * Performs a linear transformation: value * factor + offset.
+     *
+     * @param factor the multiplicative constant
+     * @param offset the additive constant
+     * @return this expression
+     */
+    public ListExpression rescale(double factor, double offset) {
+        steps.add(new Step(RESCALE, null, factor, offset));
+        return this;
+    }
+
+    /**
+     * Performs a linear transformation on the inverse: numerator / value + offset.
+     *
+     * @param numerator the numerator for each division
+     * @param offset the additive constant
+     * @return this expression
+     */
+    public ListExpression inverseRescale(double numerator, double offset) {
+        steps.add(new Step(INVERSE_RESCALE, null, numerator, offset));
+        return this;
+    }
+
+    /**
+     * Raises to a power.
+     *
+     * @param expon the exponent
+     * @return this expression
+     */
+    public ListExpression pow(double expon) {
+        steps.add(new Step(POW, null, expon, 0));
+        return this;
+    }
+
+    /**
+     * The number of elements of the result.
+     *
+     * @return the size of the result
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Evaluates the expression in a new array.
+     *
+     * @return the result
+     */
+    public ArrayDouble evaluate() {
+        return evaluate(null);
+    }
+
+    /**
+     * Evaluates the expression in the given array.
+     *
+     * @param result the array where to store the result; can be null, in
+     *        which case a new array is created
+     * @return a list that wraps the result array
+     */
+    public ArrayDouble evaluate(double[] result) {
+        int size = data.size();
+        result = ListMath.resultArray(result, size);
+
+        // Operands backed by double arrays are read in place, the others
+        // are copied one block at a time
+        double[][] operands = new double[steps.size()][];
+        double[] buffer = null;
+        for (int s = 0; s < operands.length; s++) {
+            ListNumber operand = steps.get(s).operand;
+            if (operand != null) {
+                operands[s] = CollectionNumbers.wrappedDoubleArray(operand);
+                if (operands[s] == null && buffer == null) {
+                    buffer = new double[Math.min(size, BLOCK_SIZE)];
+                }
+            }
+        }
+
+        // Each block is computed in scratch and copied to the result only
+        // when complete, since the result may be backing the data or
+        // one of the operands
+        double[] block = new double[Math.min(size, BLOCK_SIZE)];
+        for (int from = 0; from < size; from += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, size - from);
+            data.getDoubles(from, block, 0, length);
+            for (int s = 0; s < operands.length; s++) {
+                Step step = steps.get(s);
+                if (step.operand == null) {
+                    applyConstants(step.operation, block, 0, length, step.a, step.b);
+                } else if (operands[s] != null) {
+                    applyList(step.operation, block, 0, operands[s], from, length);
+                } else {
+                    step.operand.getDoubles(from, buffer, 0, length);
+                    applyList(step.operation, block, 0, buffer, 0, length);
+                }
+            }
+            System.arraycopy(block, 0, result, from, length);
+        }
+        return new ArrayDouble(result);
+    }
+
+    /**
+     * Applies the operation to length elements of result, starting at
+     * resultIndex, with the elements of operand starting at operandIndex.
+     */
+    private static void applyList(int operation, double[] result, int resultIndex, double[] operand, int operandIndex, int length) {
+        switch (operation) {
+            case ADD:
+                for (int i = 0; i < length; i++) {
+                    result[resultIndex + i] += operand[operandIndex + i];
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < length; i++) {
+                    result[resultIndex + i] -= operand[operandIndex + i];
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < length; i++) {
+                    result[resultIndex + i] *= operand[operandIndex + i];
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    result[resultIndex + i] /= operand[operandIndex + i];
+                }
+                break;
+        }
+    }
+
+    private static void applyConstants(int operation, double[] result, int from, int to, double a, double b) {
+        switch (operation) {
+            case RESCALE:
+                for (int i = from; i < to; i++) {
+                    result[i] = a * result[i] + b;
+                }
+                break;
+            case INVERSE_RESCALE:
+                for (int i = from; i < to; i++) {
+                    result[i] = a / result[i] + b;
+                }
+                break;
+            default:
+                for (int i = from; i < to; i++) {
+                    result[i] = Math.pow(result[i], a);
+                }
+                break;
+        }
+    }
+}
@@ -29,6 +29,29 @@ public abstract class ListFloat implements ListNumber, CollectionFloat {
         };
     }
 
+    @Override
+    public void forEachDouble(ConsumerDouble action) {
+        for (int i = 0; i < size(); i++) {
+            action.accept(getDouble(i));
+        }
+    }
+
+    @Override
+    public void forEachLong(ConsumerLong action) {
+        for (int i = 0; i < size(); i++) {
+            action.accept(getLong(i));
+        }
+    }
+
+    @Override
+    public double reduceDouble(double identity, BinaryOperatorDouble op) {
+        double result = identity;
+        for (int i = 0; i < size(); i++) {
+            result = op.apply(result, getDouble(i));
+        }
+        return result;
+    }
+
     @Override
     public double getDouble(int index) {
         return (double) getFloat(index);
@@ -54,6 +77,48 @@ public abstract class ListFloat implements ListNumber, CollectionFloat {
         return (byte) getFloat(index);
     }
     
+    @Override
+    public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getDouble(srcIndex + i);
+        }
+    }
+
+    @Override
+    public void getFloats(int srcIndex, float[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getFloat(srcIndex + i);
+        }
+    }
+
+    @Override
+    public void getLongs(int srcIndex, long[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getLong(srcIndex + i);
+        }
+    }
+
+    @Override
+    public void getInts(int srcIndex, int[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getInt(srcIndex + i);
+        }
+    }
+
+    @Override
+    public void getShorts(int srcIndex, short[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getShort(srcIndex + i);
+        }
+    }
+
+    @Override
+    public void getBytes(int srcIndex, byte[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getByte(srcIndex + i);
+        }
+    }
+
     @Override
     public void setDouble(int index, double value) {
         setFloat(index, (float) value);
@@ -84,6 +149,28 @@ public abstract class ListFloat implements ListNumber, CollectionFloat {
         setFloat(index, (float) value);
     }
 
+    @Override
+    public void setDoubles(int index, double[] src, int srcIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            setDouble(index + i, src[srcIndex + i]);
+        }
+    }
+
+    @Override
+    public void setAll(int index, ListNumber src) {
+        for (int i = 0; i < src.size(); i++) {
+            setFloat(index + i, src.getFloat(i));
+        }
+    }
+
+    @Override
+    public void fill(int fromIndex, int toIndex, double value) {
+        float floatValue = (float) value;
+        for (int i = fromIndex; i < toIndex; i++) {
+            setFloat(i, floatValue);
+        }
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this)
@@ -29,9 +29,32 @@ public abstract class ListLong implements ListNumber, CollectionLong {
         };
     }
 
+    @Override
+    public void forEachDouble(ConsumerDouble action) {
+        for (int i = 0; i < size(); i++) {
+            action.accept(getDouble(i));
+        }
+    }
+
+    @Override
+    public void forEachLong(ConsumerLong action) {
+        for (int i = 0; i < size(); i++) {
+            action.accept(getLong(i));
+        }
+    }
+
+    @Override
+    public double reduceDouble(double identity, BinaryOperatorDouble op) {
+        double result = identity;
+        for (int i = 0; i < size(); i++) {
+            result = op.apply(result, getDouble(i));
+        }
+        return result;
+    }
+
     @Override
     public double getDouble(int index) {
-        return (float) getLong(index);
+        return (double) getLong(index);
     }
 
     @Override
@@ -54,6 +77,48 @@ public abstract class ListLong implements ListNumber, CollectionLong {
         return (byte) getLong(index);
     }
     
+    @Override
+    public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getDouble(srcIndex + i);
+        }
+    }
+
+    @Override
+    public void getFloats(int srcIndex, float[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getFloat(srcIndex + i);
+        }
+    }
+
+    @Override
+    public void getLongs(int srcIndex, long[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getLong(srcIndex + i);
+        }
+    }
+
+    @Override
+    public void getInts(int srcIndex, int[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getInt(srcIndex + i);
+        }
+    }
+
+    @Override
+    public void getShorts(int srcIndex, short[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getShort(srcIndex + i);
+        }
+    }
+
+    @Override
+    public void getBytes(int srcIndex, byte[] dst, int dstIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getByte(srcIndex + i);
+        }
+    }
+
     @Override
     public void setDouble(int index, double value) {
         setLong(index, (long) value);
@@ -84,6 +149,28 @@ public abstract class ListLong implements ListNumber, CollectionLong {
         setLong(index, (long) value);
     }
 
+    @Override
+    public void setDoubles(int index, double[] src, int srcIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            setDouble(index + i, src[srcIndex + i]);
+        }
+    }
+
+    @Override
+    public void setAll(int index, ListNumber src) {
+        for (int i = 0; i < src.size(); i++) {
+            setLong(index + i, src.getLong(i));
+        }
+    }
+
+    @Override
+    public void fill(int fromIndex, int toIndex, double value) {
+        long longValue = (long) value;
+        for (int i = fromIndex; i < toIndex; i++) {
+            setLong(i, longValue);
+        }
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this)
@@ -71,6 +71,96 @@ public interface ListNumber extends CollectionNumber {
      */
     byte getByte(int index);
     
+    /**
+     * Copies the elements in the given range into the given array, casting
+     * each element to a double. This is equivalent to calling
+     * {@link #getDouble(int)} for each element, but implementations can use
+     * bulk operations on the underlying data.
+     *
+     * @param srcIndex position of the first element to copy
+     * @param dst the destination array
+     * @param dstIndex starting position in the destination array
+     * @param length number of elements to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of
+     *         data outside the list or the destination array
+     */
+    void getDoubles(int srcIndex, double[] dst, int dstIndex, int length);
+    
+    /**
+     * Copies the elements in the given range into the given array, casting
+     * each element to a float. This is equivalent to calling
+     * {@link #getFloat(int)} for each element, but implementations can use
+     * bulk operations on the underlying data.
+     *
+     * @param srcIndex position of the first element to copy
+     * @param dst the destination array
+     * @param dstIndex starting position in the destination array
+     * @param length number of elements to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of
+     *         data outside the list or the destination array
+     */
+    void getFloats(int srcIndex, float[] dst, int dstIndex, int length);
+    
+    /**
+     * Copies the elements in the given range into the given array, casting
+     * each element to a long. This is equivalent to calling
+     * {@link #getLong(int)} for each element, but implementations can use
+     * bulk operations on the underlying data.
+     *
+     * @param srcIndex position of the first element to copy
+     * @param dst the destination array
+     * @param dstIndex starting position in the destination array
+     * @param length number of elements to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of
+     *         data outside the list or the destination array
+     */
+    void getLongs(int srcIndex, long[] dst, int dstIndex, int length);
+    
+    /**
+     * Copies the elements in the given range into the given array, casting
+     * each element to an int. This is equivalent to calling
+     * {@link #getInt(int)} for each element, but implementations can use
+     * bulk operations on the underlying data.
+     *
+     * @param srcIndex position of the first element to copy
+     * @param dst the destination array
+     * @param dstIndex starting position in the destination array
+     * @param length number of elements to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of
+     *         data outside the list or the destination array
+     */
+    void getInts(int srcIndex, int[] dst, int dstIndex, int length);
+    
+    /**
+     * Copies the elements in the given range into the given array, casting
+     * each element to a short. This is equivalent to calling
+     * {@link #getShort(int)} for each element, but implementations can use
+     * bulk operations on the underlying data.
+     *
+     * @param srcIndex position of the first element to copy
+     * @param dst the destination array
+     * @param dstIndex starting position in the destination array
+     * @param length number of elements to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of
+     *         data outside the list or the destination array
+     */
+    void getShorts(int srcIndex, short[] dst, int dstIndex, int length);
+    
+    /**
+     * Copies the elements in the given range into the given array, casting
+     * each element to a byte. This is equivalent to calling
+     * {@link #getByte(int)} for each element, but implementations can use
+     * bulk operations on the underlying data.
+     *
+     * @param srcIndex position of the first element to copy
+     * @param dst the destination array
+     * @param dstIndex starting position in the destination array
+     * @param length number of elements to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of
+     *         data outside the list or the destination array
+     */
+    void getBytes(int srcIndex, byte[] dst, int dstIndex, int length);
+    
     /**
      * Changes the element at the specified position, casting to the internal
      * representation.
@@ -137,4 +227,39 @@ public interface ListNumber extends CollectionNumber {
      */
     void setByte(int index, byte value);
     
+    /**
+     * Changes the elements starting at the specified position with the
+     * values of the given array, casting to the internal representation.
+     * 
+     * @param index position of the first element to change
+     * @param src the array with the new values
+     * @param srcIndex position of the first new value in the array
+     * @param length number of elements to change
+     * @throws IndexOutOfBoundsException if writing would cause access of
+     *         data outside the list or the source array
+     */
+    void setDoubles(int index, double[] src, int srcIndex, int length);
+    
+    /**
+     * Changes the elements starting at the specified position with all
+     * the values of the given list, casting to the internal representation.
+     * 
+     * @param index position of the first element to change
+     * @param src the list with the new values
+     * @throws IndexOutOfBoundsException if writing would cause access of
+     *         data outside the list
+     */
+    void setAll(int index, ListNumber src);
+    
+    /**
+     * Changes all the elements in the given range to the given value,
+     * casting to the internal representation.
+     * 
+     * @param fromIndex position of the first element to change (inclusive)
+     * @param toIndex position of the last element to change (exclusive)
+     * @param value the new value
+     * @throws IndexOutOfBoundsException if the range is outside the list
+     */
+    void fill(int fromIndex, int toIndex, double value);
+    
 }
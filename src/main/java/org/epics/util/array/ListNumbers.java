@@ -4,6 +4,19 @@
  */
 package org.epics.util.array;
 
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 /**
  * Utilities for manipulating ListNumbers.
  *
@@ -14,14 +27,30 @@ public class ListNumbers {
     /**
      * Creates a sorted view of the given ListNumber.
      * <p>
-     * The ListNumber is not sorted in place, and the data is not copied out.
-     * Therefore it's intended that the ListNumber is not changed while
-     * the view is used.
+     * The ListNumber is not sorted in place. The values are copied out
+     * once for sorting, but it's still intended that the ListNumber
+     * is not changed while the view is used.
      * 
      * @param values the values to be sorted
      * @return the sorted view
      */
     public static SortedListView sortedView(ListNumber values) {
+        return sortedView(values, false);
+    }
+    
+    /**
+     * Creates a sorted view of the given ListNumber, optionally keeping
+     * equal values in their original order.
+     * <p>
+     * The ListNumber is not sorted in place. The values are copied out
+     * once for sorting, but it's still intended that the ListNumber
+     * is not changed while the view is used.
+     * 
+     * @param values the values to be sorted
+     * @param stable true if equal values must keep their original order
+     * @return the sorted view
+     */
+    public static SortedListView sortedView(ListNumber values, boolean stable) {
         SortedListView view = new SortedListView(values);
         if (values.size() <= 1) {
             // Nothing to sort
@@ -31,8 +60,8 @@ public class ListNumbers {
         double value = values.getDouble(0);
         for (int i = 1; i < values.size(); i++) {
             double newValue = values.getDouble(i);
-            if (value > newValue) {
-                SortedListView.quicksort(view);
+            if (SortedListView.less(newValue, value)) {
+                SortedListView.sort(view, stable);
                 return view;
             }
             value = newValue;
@@ -41,6 +70,51 @@ public class ListNumbers {
         return view;
     }
     
+    /**
+     * The size above which {@link #parallelSortedView(ListNumber)} sorts
+     * using multiple threads.
+     */
+    public static final int DEFAULT_PARALLEL_SORT_THRESHOLD = 1 << 20;
+    
+    private static final int MIN_SORT_LEAF_SIZE = 1 << 14;
+    
+    /**
+     * Creates a sorted view of the given ListNumber, using multiple threads
+     * if the data is larger than {@link #DEFAULT_PARALLEL_SORT_THRESHOLD}.
+     * <p>
+     * The result, including the index map, is the same as the one of
+     * {@link #sortedView(ListNumber, boolean) } with a stable sort.
+     * 
+     * @param values the values to be sorted
+     * @return the sorted view
+     */
+    public static SortedListView parallelSortedView(ListNumber values) {
+        return parallelSortedView(values, DEFAULT_PARALLEL_SORT_THRESHOLD);
+    }
+    
+    /**
+     * Creates a sorted view of the given ListNumber, using multiple threads
+     * if the data is larger than the given threshold. The data is split
+     * by index range; each range is sorted in the fork-join pool and
+     * the sorted ranges are merged.
+     * <p>
+     * The result, including the index map, is the same as the one of
+     * {@link #sortedView(ListNumber, boolean) } with a stable sort.
+     * 
+     * @param values the values to be sorted
+     * @param threshold the minimum size for which the sort is split
+     * @return the sorted view
+     */
+    public static SortedListView parallelSortedView(ListNumber values, int threshold) {
+        if (values.size() < threshold) {
+            return sortedView(values, true);
+        }
+        SortedListView view = new SortedListView(values);
+        int leafSize = Math.max(MIN_SORT_LEAF_SIZE, values.size() / (SortedListView.getParallelism() * 4));
+        SortedListView.parallelSort(view, leafSize);
+        return view;
+    }
+    
     /**
      * Creates a sorted view of the given ListNumber based on the indexes provided.
      * This method can be used to sort the given values based on the ordering
@@ -61,6 +135,18 @@ public class ListNumbers {
     
     /**
      * Finds the value in the list, or the one right below it.
+     * <p>
+     * The list must be sorted in ascending order. If the value is in
+     * the list, the index of its first occurrence is returned; otherwise
+     * the index of the greatest value below it, or 0 if there is none.
+     * <p>
+     * For lists created with {@link #linearList(double, double, int) }
+     * or {@link #linearListFromRange(double, double, int) } the index is
+     * computed directly. For other lists an interpolation search is used,
+     * which takes O(log log n) for values that are close to equally
+     * spaced, such as sampled timestamps, and falls back to bisection when
+     * the interpolation does not narrow the range, so that the worst case
+     * remains O(log n).
      * 
      * @param values a list of values
      * @param value a value
@@ -74,17 +160,18 @@ public class ListNumbers {
             return values.size() - 1;
         }
         
-        int index = binarySearch(0, values.size() - 1, values, value);
-        
-        while (index != 0 && value == values.getDouble(index - 1)) {
-            index--;
-        }
-        
-        return index;
+        int index = search(values, value, false, 0, values.size() - 1);
+        return valueOrLower(values, value, index);
     }
 
     /**
      * Finds the value in the list, or the one right above it.
+     * <p>
+     * The list must be sorted in ascending order. If the value is in
+     * the list, the index of its last occurrence is returned; otherwise
+     * the index of the smallest value above it, or the last index if there
+     * is none. See {@link #binarySearchValueOrLower(ListNumber, double) }
+     * for the search strategy.
      * 
      * @param values a list of values
      * @param value a value
@@ -98,42 +185,167 @@ public class ListNumbers {
             return values.size() - 1;
         }
         
-        int index = binarySearch(0, values.size() - 1, values, value);
-        
-        while (index != values.size() - 1 && value > values.getDouble(index)) {
-            index++;
+        int index = search(values, value, true, 0, values.size() - 1);
+        return valueOrHigher(values, value, index);
+    }
+    
+    /**
+     * Finds each of the sorted values in the list, or the one right below it.
+     * Same as calling {@link #binarySearchValueOrLower(ListNumber, double) }
+     * for each value, but each search starts from the result of the
+     * previous one, so that the list is traversed only once.
+     * 
+     * @param values a list of values
+     * @param sortedValues the values to search, in ascending order
+     * @param result the array where to store the indexes; can be null, in
+     *        which case a new array is created
+     * @return a list that wraps the result array
+     */
+    public static ArrayInt binarySearchValueOrLower(ListNumber values, ListNumber sortedValues, int[] result) {
+        return batchSearch(values, sortedValues, result, false);
+    }
+    
+    /**
+     * Finds each of the sorted values in the list, or the one right above it.
+     * Same as calling {@link #binarySearchValueOrHigher(ListNumber, double) }
+     * for each value, but each search starts from the result of the
+     * previous one, so that the list is traversed only once.
+     * 
+     * @param values a list of values
+     * @param sortedValues the values to search, in ascending order
+     * @param result the array where to store the indexes; can be null, in
+     *        which case a new array is created
+     * @return a list that wraps the result array
+     */
+    public static ArrayInt binarySearchValueOrHigher(ListNumber values, ListNumber sortedValues, int[] result) {
+        return batchSearch(values, sortedValues, result, true);
+    }
+    
+    private static ArrayInt batchSearch(ListNumber values, ListNumber sortedValues, int[] result, boolean higher) {
+        int size = sortedValues.size();
+        if (result == null) {
+            result = new int[size];
+        } else if (result.length != size) {
+            throw new IllegalArgumentException("Result array size (" + result.length + ") does not match the number of values (" + size + ")");
         }
-        
-        while (index != values.size() - 1 && value == values.getDouble(index + 1)) {
-            index++;
+        int last = values.size() - 1;
+        double first = values.getDouble(0);
+        double lastValue = values.getDouble(last);
+        double previous = Double.NEGATIVE_INFINITY;
+        // The value at low is always below the values still to search
+        int low = 0;
+        for (int i = 0; i < size; i++) {
+            double value = sortedValues.getDouble(i);
+            if (value < previous) {
+                throw new IllegalArgumentException("Values to search must be sorted (" + previous + " followed by " + value + ")");
+            }
+            previous = value;
+            if (value <= first) {
+                result[i] = 0;
+            } else if (value >= lastValue) {
+                result[i] = last;
+            } else {
+                // Gallop forward from the previous result to bracket the value
+                int step = 1;
+                int high = Math.min(low + step, last);
+                while (high < last && goesRight(values.getDouble(high), value, higher)) {
+                    low = high;
+                    step *= 2;
+                    high = Math.min(low + step, last);
+                }
+                int index = search(values, value, higher, low, high);
+                low = index - 1;
+                result[i] = higher ? valueOrHigher(values, value, index) : valueOrLower(values, value, index);
+            }
+        }
+        return new ArrayInt(result);
+    }
+    
+    // Given the first index with a value greater or equal, returns
+    // the first equal or the one before
+    private static int valueOrLower(ListNumber values, double value, int index) {
+        if (values.getDouble(index) != value) {
+            index--;
         }
-        
         return index;
     }
+    
+    // Given the first index with a value greater, returns
+    // the last equal or that one
+    private static int valueOrHigher(ListNumber values, double value, int index) {
+        if (values.getDouble(index - 1) == value) {
+            index--;
+        }
+        return index;
+    }
+    
+    // Whether an element with the given value comes before the boundary
+    // being searched: the first element greater or equal to the value,
+    // or the first element greater than the value if strict
+    private static boolean goesRight(double element, double value, boolean strict) {
+        return strict ? element <= value : element < value;
+    }
 
-    private static int binarySearch(int low, int high, ListNumber values, double value) {
-        // Taken from JDK
-        while (low <= high) {
-            int mid = (low + high) >>> 1;
-            double midVal = values.getDouble(mid);
-
-            if (midVal < value)
-                low = mid + 1;  // Neither val is NaN, thisVal is smaller
-            else if (midVal > value)
-                high = mid - 1; // Neither val is NaN, thisVal is larger
-            else {
-                long midBits = Double.doubleToLongBits(midVal);
-                long keyBits = Double.doubleToLongBits(value);
-                if (midBits == keyBits)     // Values are equal
-                    return mid;             // Key found
-                else if (midBits < keyBits) // (-0.0, 0.0) or (!NaN, NaN)
-                    low = mid + 1;
-                else                        // (0.0, -0.0) or (NaN, !NaN)
-                    high = mid - 1;
+    /**
+     * Finds the first index in (low, high] whose element does not go right
+     * of the value (see goesRight), given that the element at low goes right
+     * and the one at high does not.
+     */
+    private static int search(ListNumber values, double value, boolean strict, int low, int high) {
+        double guess = linearIndex(values, value);
+        if (!Double.isNaN(guess)) {
+            // Start from the computed index, and correct for rounding
+            int index = (int) Math.max(low + 1, Math.min(high, Math.ceil(guess)));
+            while (index > low + 1 && !goesRight(values.getDouble(index - 1), value, strict)) {
+                index--;
+            }
+            while (goesRight(values.getDouble(index), value, strict)) {
+                index++;
             }
+            return index;
         }
         
-        return low - 1;  // key not found.
+        double lowValue = values.getDouble(low);
+        double highValue = values.getDouble(high);
+        boolean bisect = false;
+        while (high - low > 1) {
+            int mid;
+            if (bisect) {
+                mid = (low + high) >>> 1;
+            } else {
+                mid = low + (int) ((value - lowValue) / (highValue - lowValue) * (high - low));
+                mid = Math.max(low + 1, Math.min(high - 1, mid));
+            }
+            double midValue = values.getDouble(mid);
+            int oldSize = high - low;
+            if (goesRight(midValue, value, strict)) {
+                low = mid;
+                lowValue = midValue;
+            } else {
+                high = mid;
+                highValue = midValue;
+            }
+            // Interpolation that did not halve the range is followed by a bisection
+            bisect = !bisect && (high - low) > oldSize / 2;
+        }
+        return high;
+    }
+    
+    // The fractional index of the value in an ascending linear list, or NaN
+    // if the list is not known to be linear
+    private static double linearIndex(ListNumber values, double value) {
+        if (values instanceof LinearListDouble) {
+            LinearListDouble list = (LinearListDouble) values;
+            if (list.increment > 0) {
+                return (value - list.initialValue) / list.increment;
+            }
+        } else if (values instanceof LinearListDoubleFromRange) {
+            LinearListDoubleFromRange list = (LinearListDoubleFromRange) values;
+            if (list.maxValue > list.minValue) {
+                return (value - list.minValue) / (list.maxValue - list.minValue) * (list.size - 1);
+            }
+        }
+        return Double.NaN;
     }
     
     /**
@@ -223,6 +435,205 @@ public class ListNumbers {
         }
     }
 
+    /**
+     * Wraps a java.nio buffer into the appropriate read-only ListNumber
+     * implementation. The data is not copied: the list reads directly
+     * from the buffer between its current position and limit.
+     * 
+     * @param buffer a ByteBuffer, ShortBuffer, IntBuffer, LongBuffer,
+     *        FloatBuffer or DoubleBuffer
+     * @return the wrapped buffer
+     */
+    public static ListNumber toListNumber(Buffer buffer) {
+        return toListNumber(buffer, true);
+    }
+    
+    /**
+     * Wraps a java.nio buffer into the appropriate ListNumber
+     * implementation. The data is not copied: the list reads and writes
+     * directly the buffer between its current position and limit.
+     * 
+     * @param buffer a ByteBuffer, ShortBuffer, IntBuffer, LongBuffer,
+     *        FloatBuffer or DoubleBuffer
+     * @param readOnly if false the list allows writes to the buffer
+     * @return the wrapped buffer
+     */
+    public static ListNumber toListNumber(Buffer buffer, boolean readOnly) {
+        if (!readOnly && buffer.isReadOnly()) {
+            throw new IllegalArgumentException("Can't create a writable list from a read only buffer");
+        }
+        if (buffer instanceof ByteBuffer) {
+            return new NioList.Byte((ByteBuffer) buffer, readOnly);
+        } else if (buffer instanceof ShortBuffer) {
+            return new NioList.Short((ShortBuffer) buffer, readOnly);
+        } else if (buffer instanceof IntBuffer) {
+            return new NioList.Int((IntBuffer) buffer, readOnly);
+        } else if (buffer instanceof LongBuffer) {
+            return new NioList.Long((LongBuffer) buffer, readOnly);
+        } else if (buffer instanceof FloatBuffer) {
+            return new NioList.Float((FloatBuffer) buffer, readOnly);
+        } else if (buffer instanceof DoubleBuffer) {
+            return new NioList.Double((DoubleBuffer) buffer, readOnly);
+        } else {
+            throw new IllegalArgumentException(buffer + " is not a buffer of numbers");
+        }
+    }
+    
+    /**
+     * Wraps the bytes of a buffer into a ListNumber of the given type, using
+     * the given byte order. The data is not copied: the list reads and writes
+     * directly the bytes between the current position and limit of the buffer.
+     * The byte order of the buffer itself is not changed.
+     * 
+     * @param buffer the buffer with the data
+     * @param elementType the primitive type of the elements (byte.class,
+     *        short.class, int.class, long.class, float.class or double.class)
+     * @param order the byte order of the data
+     * @param readOnly if false the list allows writes to the buffer
+     * @return the wrapped buffer
+     */
+    public static ListNumber toListNumber(ByteBuffer buffer, Class<?> elementType, ByteOrder order, boolean readOnly) {
+        ByteBuffer bytes = buffer.duplicate().order(order);
+        if (elementType == byte.class) {
+            return toListNumber(bytes, readOnly);
+        } else if (elementType == short.class) {
+            return toListNumber(bytes.asShortBuffer(), readOnly);
+        } else if (elementType == int.class) {
+            return toListNumber(bytes.asIntBuffer(), readOnly);
+        } else if (elementType == long.class) {
+            return toListNumber(bytes.asLongBuffer(), readOnly);
+        } else if (elementType == float.class) {
+            return toListNumber(bytes.asFloatBuffer(), readOnly);
+        } else if (elementType == double.class) {
+            return toListNumber(bytes.asDoubleBuffer(), readOnly);
+        } else {
+            throw new IllegalArgumentException(elementType + " is not a primitive number type");
+        }
+    }
+
+    /**
+     * The maximum number of bytes mapped in a single buffer. Must be a power
+     * of two, so that a segment always contains a whole number of elements.
+     */
+    private static final int MAPPED_SEGMENT_SIZE = 1 << 30;
+    
+    /**
+     * Maps a region of a file in memory and wraps it into a ListNumber of the
+     * given type. The data is not read in advance: the operating system
+     * loads the pages as they are accessed, so the content of the file does
+     * not use space on the Java heap. Regions larger than 1 GB are
+     * mapped in multiple segments, so files larger than 2 GB can be used.
+     * <p>
+     * The mapping remains valid after the channel is closed. If the list is
+     * writable, the channel must be open for writing, the changes are written
+     * to the file and the file is extended if the region goes past its end.
+     * 
+     * @param channel the channel of the file
+     * @param position the position in the file, in bytes, where the region starts
+     * @param size the number of elements in the list
+     * @param elementType the primitive type of the elements (byte.class,
+     *        short.class, int.class, long.class, float.class or double.class)
+     * @param order the byte order of the data
+     * @param readOnly if false the list allows writes to the file
+     * @return the list backed by the file
+     * @throws IOException if the file cannot be mapped
+     */
+    public static ListNumber mappedListNumber(FileChannel channel, long position, int size,
+            Class<?> elementType, ByteOrder order, boolean readOnly) throws IOException {
+        return mappedListNumber(channel, position, size, elementType, order, readOnly, MAPPED_SEGMENT_SIZE);
+    }
+    
+    /**
+     * Maps a region of a file in segments of at most the given number of
+     * bytes, which must be a power of two. Package private so that tests
+     * can use smaller segments.
+     */
+    static ListNumber mappedListNumber(FileChannel channel, long position, int size,
+            Class<?> elementType, ByteOrder order, boolean readOnly, int maxSegmentBytes) throws IOException {
+        int elementSize = elementSize(elementType);
+        long totalBytes = (long) size * elementSize;
+        if (readOnly && position + totalBytes > channel.size()) {
+            throw new IllegalArgumentException("Region " + position + " - " + (position + totalBytes) + " exceeds file size " + channel.size());
+        }
+        FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        if (totalBytes <= maxSegmentBytes) {
+            return toListNumber(channel.map(mode, position, totalBytes), elementType, order, readOnly);
+        }
+        
+        int segmentLength = maxSegmentBytes / elementSize;
+        int nSegments = (int) ((size + (long) segmentLength - 1) / segmentLength);
+        ListNumber[] segments = new ListNumber[nSegments];
+        for (int i = 0; i < nSegments; i++) {
+            long segmentStart = (long) i * segmentLength;
+            long segmentSize = Math.min(segmentLength, size - segmentStart);
+            ByteBuffer buffer = channel.map(mode, position + segmentStart * elementSize, segmentSize * elementSize);
+            segments[i] = toListNumber(buffer, elementType, order, readOnly);
+        }
+        return segmentedList(segments, Integer.numberOfTrailingZeros(segmentLength), size, elementType);
+    }
+    
+    /**
+     * Maps a whole file in memory, read-only, and wraps it into a ListNumber
+     * of the given type. See {@link #mappedListNumber(java.nio.channels.FileChannel, long, int, java.lang.Class, java.nio.ByteOrder, boolean) }.
+     * 
+     * @param file the file to map
+     * @param elementType the primitive type of the elements
+     * @param order the byte order of the data
+     * @return the list backed by the file
+     * @throws IOException if the file cannot be mapped
+     */
+    public static ListNumber mappedListNumber(Path file, Class<?> elementType, ByteOrder order) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size() / elementSize(elementType);
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("File " + file + " has more than " + Integer.MAX_VALUE + " elements");
+            }
+            return mappedListNumber(channel, 0, (int) size, elementType, order, true);
+        }
+    }
+    
+    private static int elementSize(Class<?> elementType) {
+        if (elementType == byte.class) {
+            return 1;
+        } else if (elementType == short.class) {
+            return 2;
+        } else if (elementType == int.class || elementType == float.class) {
+            return 4;
+        } else if (elementType == long.class || elementType == double.class) {
+            return 8;
+        } else {
+            throw new IllegalArgumentException(elementType + " is not a primitive number type");
+        }
+    }
+    
+    private static ListNumber segmentedList(ListNumber[] segments, int segmentShift, int size, Class<?> elementType) {
+        if (elementType == byte.class) {
+            ListByte[] typed = new ListByte[segments.length];
+            System.arraycopy(segments, 0, typed, 0, segments.length);
+            return new SegmentedList.Byte(typed, segmentShift, size);
+        } else if (elementType == short.class) {
+            ListShort[] typed = new ListShort[segments.length];
+            System.arraycopy(segments, 0, typed, 0, segments.length);
+            return new SegmentedList.Short(typed, segmentShift, size);
+        } else if (elementType == int.class) {
+            ListInt[] typed = new ListInt[segments.length];
+            System.arraycopy(segments, 0, typed, 0, segments.length);
+            return new SegmentedList.Int(typed, segmentShift, size);
+        } else if (elementType == long.class) {
+            ListLong[] typed = new ListLong[segments.length];
+            System.arraycopy(segments, 0, typed, 0, segments.length);
+            return new SegmentedList.Long(typed, segmentShift, size);
+        } else if (elementType == float.class) {
+            ListFloat[] typed = new ListFloat[segments.length];
+            System.arraycopy(segments, 0, typed, 0, segments.length);
+            return new SegmentedList.Float(typed, segmentShift, size);
+        } else {
+            ListDouble[] typed = new ListDouble[segments.length];
+            System.arraycopy(segments, 0, typed, 0, segments.length);
+            return new SegmentedList.Double(typed, segmentShift, size);
+        }
+    }
+
     private static class LinearListDoubleFromRange extends ListDouble {
 
         private final int size;
@@ -243,6 +654,16 @@ public class ListNumbers {
             return minValue + (index * (maxValue - minValue)) / (size - 1);
         }
 
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            if (srcIndex < 0 || length < 0 || srcIndex + length > size) {
+                throw new IndexOutOfBoundsException("Range: " + srcIndex + " - " + (srcIndex + length) + ", Size: " + size);
+            }
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = minValue + ((srcIndex + i) * (maxValue - minValue)) / (size - 1);
+            }
+        }
+
         @Override
         public int size() {
             return size;
@@ -269,6 +690,16 @@ public class ListNumbers {
             return initialValue + index * increment;
         }
 
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            if (srcIndex < 0 || length < 0 || srcIndex + length > size) {
+                throw new IndexOutOfBoundsException("Range: " + srcIndex + " - " + (srcIndex + length) + ", Size: " + size);
+            }
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = initialValue + (srcIndex + i) * increment;
+            }
+        }
+
             @Override
             public int size() {
                 return size;
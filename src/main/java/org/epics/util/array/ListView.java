@@ -30,6 +30,13 @@ class ListView {
             return list.getDouble(indexes.getInt(index));
         }
 
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = list.getDouble(indexes.getInt(srcIndex + i));
+            }
+        }
+
         @Override
         public int size() {
             return indexes.size();
@@ -54,6 +61,13 @@ class ListView {
             return list.getFloat(indexes.getInt(index));
         }
 
+        @Override
+        public void getFloats(int srcIndex, float[] dst, int dstIndex, int length) {
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = list.getFloat(indexes.getInt(srcIndex + i));
+            }
+        }
+
         @Override
         public int size() {
             return indexes.size();
@@ -78,6 +92,13 @@ class ListView {
             return list.getLong(indexes.getInt(index));
         }
 
+        @Override
+        public void getLongs(int srcIndex, long[] dst, int dstIndex, int length) {
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = list.getLong(indexes.getInt(srcIndex + i));
+            }
+        }
+
         @Override
         public int size() {
             return indexes.size();
@@ -102,6 +123,13 @@ class ListView {
             return list.getInt(indexes.getInt(index));
         }
 
+        @Override
+        public void getInts(int srcIndex, int[] dst, int dstIndex, int length) {
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = list.getInt(indexes.getInt(srcIndex + i));
+            }
+        }
+
         @Override
         public int size() {
             return indexes.size();
@@ -126,6 +154,13 @@ class ListView {
             return list.getShort(indexes.getInt(index));
         }
 
+        @Override
+        public void getShorts(int srcIndex, short[] dst, int dstIndex, int length) {
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = list.getShort(indexes.getInt(srcIndex + i));
+            }
+        }
+
         @Override
         public int size() {
             return indexes.size();
@@ -150,6 +185,13 @@ class ListView {
             return list.getByte(indexes.getInt(index));
         }
 
+        @Override
+        public void getBytes(int srcIndex, byte[] dst, int dstIndex, int length) {
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = list.getByte(indexes.getInt(srcIndex + i));
+            }
+        }
+
         @Override
         public int size() {
             return indexes.size();
@@ -0,0 +1,490 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Wraps a java.nio buffer into a list. The buffer can be direct, so the
+ * data does not need to be on the Java heap, and can have either byte
+ * order. The list covers the elements between the position and the
+ * limit of the buffer at the time of creation, and is not affected by
+ * later changes of the position or the limit.
+ *
+ * @author carcassi
+ */
+class NioList {
+    
+    private static void checkRange(int index, int length, int size) {
+        if (index < 0 || length < 0 || index + length > size) {
+            throw new IndexOutOfBoundsException("Range: " + index + " - " + (index + length) + ", Size: " + size);
+        }
+    }
+
+    /**
+     * A NioList implementation for doubles.
+     */
+    static class Double extends ListDouble {
+        private final DoubleBuffer buffer;
+        private final boolean readOnly;
+
+        public Double(DoubleBuffer buffer, boolean readOnly) {
+            this.buffer = buffer.slice();
+            this.readOnly = readOnly;
+        }
+
+        @Override
+        public int size() {
+            return buffer.limit();
+        }
+
+        @Override
+        public double getDouble(int index) {
+            return buffer.get(index);
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size());
+            DoubleBuffer source = buffer.duplicate();
+            source.position(srcIndex);
+            source.get(dst, dstIndex, length);
+        }
+
+        @Override
+        public void forEachDouble(ConsumerDouble action) {
+            int size = size();
+            for (int i = 0; i < size; i++) {
+                action.accept(buffer.get(i));
+            }
+        }
+
+        @Override
+        public void setDouble(int index, double value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            buffer.put(index, value);
+        }
+
+        @Override
+        public void setDoubles(int index, double[] src, int srcIndex, int length) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(index, length, size());
+            DoubleBuffer destination = buffer.duplicate();
+            destination.position(index);
+            destination.put(src, srcIndex, length);
+        }
+
+        @Override
+        public void fill(int fromIndex, int toIndex, double value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(fromIndex, toIndex - fromIndex, size());
+            double element = value;
+            for (int i = fromIndex; i < toIndex; i++) {
+                buffer.put(i, element);
+            }
+        }
+    }
+
+    /**
+     * A NioList implementation for floats.
+     */
+    static class Float extends ListFloat {
+        private final FloatBuffer buffer;
+        private final boolean readOnly;
+
+        public Float(FloatBuffer buffer, boolean readOnly) {
+            this.buffer = buffer.slice();
+            this.readOnly = readOnly;
+        }
+
+        @Override
+        public int size() {
+            return buffer.limit();
+        }
+
+        @Override
+        public float getFloat(int index) {
+            return buffer.get(index);
+        }
+
+        @Override
+        public void getFloats(int srcIndex, float[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size());
+            FloatBuffer source = buffer.duplicate();
+            source.position(srcIndex);
+            source.get(dst, dstIndex, length);
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size());
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = buffer.get(srcIndex + i);
+            }
+        }
+
+        @Override
+        public void forEachDouble(ConsumerDouble action) {
+            int size = size();
+            for (int i = 0; i < size; i++) {
+                action.accept(buffer.get(i));
+            }
+        }
+
+        @Override
+        public void setFloat(int index, float value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            buffer.put(index, value);
+        }
+
+        @Override
+        public void setDoubles(int index, double[] src, int srcIndex, int length) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(index, length, size());
+            for (int i = 0; i < length; i++) {
+                buffer.put(index + i, (float) src[srcIndex + i]);
+            }
+        }
+
+        @Override
+        public void fill(int fromIndex, int toIndex, double value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(fromIndex, toIndex - fromIndex, size());
+            float element = (float) value;
+            for (int i = fromIndex; i < toIndex; i++) {
+                buffer.put(i, element);
+            }
+        }
+    }
+
+    /**
+     * A NioList implementation for longs.
+     */
+    static class Long extends ListLong {
+        private final LongBuffer buffer;
+        private final boolean readOnly;
+
+        public Long(LongBuffer buffer, boolean readOnly) {
+            this.buffer = buffer.slice();
+            this.readOnly = readOnly;
+        }
+
+        @Override
+        public int size() {
+            return buffer.limit();
+        }
+
+        @Override
+        public long getLong(int index) {
+            return buffer.get(index);
+        }
+
+        @Override
+        public void getLongs(int srcIndex, long[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size());
+            LongBuffer source = buffer.duplicate();
+            source.position(srcIndex);
+            source.get(dst, dstIndex, length);
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size());
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = buffer.get(srcIndex + i);
+            }
+        }
+
+        @Override
+        public void forEachDouble(ConsumerDouble action) {
+            int size = size();
+            for (int i = 0; i < size; i++) {
+                action.accept(buffer.get(i));
+            }
+        }
+
+        @Override
+        public void setLong(int index, long value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            buffer.put(index, value);
+        }
+
+        @Override
+        public void setDoubles(int index, double[] src, int srcIndex, int length) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(index, length, size());
+            for (int i = 0; i < length; i++) {
+                buffer.put(index + i, (long) src[srcIndex + i]);
+            }
+        }
+
+        @Override
+        public void fill(int fromIndex, int toIndex, double value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(fromIndex, toIndex - fromIndex, size());
+            long element = (long) value;
+            for (int i = fromIndex; i < toIndex; i++) {
+                buffer.put(i, element);
+            }
+        }
+    }
+
+    /**
+     * A NioList implementation for ints.
+     */
+    static class Int extends ListInt {
+        private final IntBuffer buffer;
+        private final boolean readOnly;
+
+        public Int(IntBuffer buffer, boolean readOnly) {
+            this.buffer = buffer.slice();
+            this.readOnly = readOnly;
+        }
+
+        @Override
+        public int size() {
+            return buffer.limit();
+        }
+
+        @Override
+        public int getInt(int index) {
+            return buffer.get(index);
+        }
+
+        @Override
+        public void getInts(int srcIndex, int[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size());
+            IntBuffer source = buffer.duplicate();
+            source.position(srcIndex);
+            source.get(dst, dstIndex, length);
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size());
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = buffer.get(srcIndex + i);
+            }
+        }
+
+        @Override
+        public void forEachDouble(ConsumerDouble action) {
+            int size = size();
+            for (int i = 0; i < size; i++) {
+                action.accept(buffer.get(i));
+            }
+        }
+
+        @Override
+        public void setInt(int index, int value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            buffer.put(index, value);
+        }
+
+        @Override
+        public void setDoubles(int index, double[] src, int srcIndex, int length) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(index, length, size());
+            for (int i = 0; i < length; i++) {
+                buffer.put(index + i, (int) src[srcIndex + i]);
+            }
+        }
+
+        @Override
+        public void fill(int fromIndex, int toIndex, double value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(fromIndex, toIndex - fromIndex, size());
+            int element = (int) value;
+            for (int i = fromIndex; i < toIndex; i++) {
+                buffer.put(i, element);
+            }
+        }
+    }
+
+    /**
+     * A NioList implementation for shorts.
+     */
+    static class Short extends ListShort {
+        private final ShortBuffer buffer;
+        private final boolean readOnly;
+
+        public Short(ShortBuffer buffer, boolean readOnly) {
+            this.buffer = buffer.slice();
+            this.readOnly = readOnly;
+        }
+
+        @Override
+        public int size() {
+            return buffer.limit();
+        }
+
+        @Override
+        public short getShort(int index) {
+            return buffer.get(index);
+        }
+
+        @Override
+        public void getShorts(int srcIndex, short[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size());
+            ShortBuffer source = buffer.duplicate();
+            source.position(srcIndex);
+            source.get(dst, dstIndex, length);
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size());
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = buffer.get(srcIndex + i);
+            }
+        }
+
+        @Override
+        public void forEachDouble(ConsumerDouble action) {
+            int size = size();
+            for (int i = 0; i < size; i++) {
+                action.accept(buffer.get(i));
+            }
+        }
+
+        @Override
+        public void setShort(int index, short value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            buffer.put(index, value);
+        }
+
+        @Override
+        public void setDoubles(int index, double[] src, int srcIndex, int length) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(index, length, size());
+            for (int i = 0; i < length; i++) {
+                buffer.put(index + i, (short) src[srcIndex + i]);
+            }
+        }
+
+        @Override
+        public void fill(int fromIndex, int toIndex, double value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(fromIndex, toIndex - fromIndex, size());
+            short element = (short) value;
+            for (int i = fromIndex; i < toIndex; i++) {
+                buffer.put(i, element);
+            }
+        }
+    }
+
+    /**
+     * A NioList implementation for bytes.
+     */
+    static class Byte extends ListByte {
+        private final ByteBuffer buffer;
+        private final boolean readOnly;
+
+        public Byte(ByteBuffer buffer, boolean readOnly) {
+            this.buffer = buffer.slice();
+            this.readOnly = readOnly;
+        }
+
+        @Override
+        public int size() {
+            return buffer.limit();
+        }
+
+        @Override
+        public byte getByte(int index) {
+            return buffer.get(index);
+        }
+
+        @Override
+        public void getBytes(int srcIndex, byte[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size());
+            ByteBuffer source = buffer.duplicate();
+            source.position(srcIndex);
+            source.get(dst, dstIndex, length);
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size());
+            for (int i = 0; i < length; i++) {
+                dst[dstIndex + i] = buffer.get(srcIndex + i);
+            }
+        }
+
+        @Override
+        public void forEachDouble(ConsumerDouble action) {
+            int size = size();
+            for (int i = 0; i < size; i++) {
+                action.accept(buffer.get(i));
+            }
+        }
+
+        @Override
+        public void setByte(int index, byte value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            buffer.put(index, value);
+        }
+
+        @Override
+        public void setDoubles(int index, double[] src, int srcIndex, int length) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(index, length, size());
+            for (int i = 0; i < length; i++) {
+                buffer.put(index + i, (byte) src[srcIndex + i]);
+            }
+        }
+
+        @Override
+        public void fill(int fromIndex, int toIndex, double value) {
+            if (readOnly) {
+                throw new UnsupportedOperationException("Read only list.");
+            }
+            checkRange(fromIndex, toIndex - fromIndex, size());
+            byte element = (byte) value;
+            for (int i = fromIndex; i < toIndex; i++) {
+                buffer.put(i, element);
+            }
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+/**
+ * Presents a sequence of lists as a single list. All the segments but the
+ * last have the same size, which is a power of two, so that the segment
+ * and the position within the segment can be found with a shift and a mask.
+ * This allows a list to span data that cannot be held in a single
+ * buffer, such as a memory mapped file larger than 2 GB.
+ *
+ * @author carcassi
+ */
+class SegmentedList {
+
+    private static void checkRange(int index, int length, int size) {
+        if (index < 0 || length < 0 || index + length > size) {
+            throw new IndexOutOfBoundsException("Range: " + index + " - " + (index + length) + ", Size: " + size);
+        }
+    }
+
+    /**
+     * A SegmentedList implementation for doubles.
+     */
+    static class Double extends ListDouble {
+        private final ListDouble[] segments;
+        private final int segmentShift;
+        private final int segmentMask;
+        private final int size;
+
+        public Double(ListDouble[] segments, int segmentShift, int size) {
+            this.segments = segments;
+            this.segmentShift = segmentShift;
+            this.segmentMask = (1 << segmentShift) - 1;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public double getDouble(int index) {
+            return segments[index >>> segmentShift].getDouble(index & segmentMask);
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size);
+            while (length > 0) {
+                int offset = srcIndex & segmentMask;
+                int n = Math.min(length, (1 << segmentShift) - offset);
+                segments[srcIndex >>> segmentShift].getDoubles(offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void setDouble(int index, double value) {
+            segments[index >>> segmentShift].setDouble(index & segmentMask, value);
+        }
+    }
+
+    /**
+     * A SegmentedList implementation for floats.
+     */
+    static class Float extends ListFloat {
+        private final ListFloat[] segments;
+        private final int segmentShift;
+        private final int segmentMask;
+        private final int size;
+
+        public Float(ListFloat[] segments, int segmentShift, int size) {
+            this.segments = segments;
+            this.segmentShift = segmentShift;
+            this.segmentMask = (1 << segmentShift) - 1;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public float getFloat(int index) {
+            return segments[index >>> segmentShift].getFloat(index & segmentMask);
+        }
+
+        @Override
+        public void getFloats(int srcIndex, float[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size);
+            while (length > 0) {
+                int offset = srcIndex & segmentMask;
+                int n = Math.min(length, (1 << segmentShift) - offset);
+                segments[srcIndex >>> segmentShift].getFloats(offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size);
+            while (length > 0) {
+                int offset = srcIndex & segmentMask;
+                int n = Math.min(length, (1 << segmentShift) - offset);
+                segments[srcIndex >>> segmentShift].getDoubles(offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void setFloat(int index, float value) {
+            segments[index >>> segmentShift].setFloat(index & segmentMask, value);
+        }
+    }
+
+    /**
+     * A SegmentedList implementation for longs.
+     */
+    static class Long extends ListLong {
+        private final ListLong[] segments;
+        private final int segmentShift;
+        private final int segmentMask;
+        private final int size;
+
+        public Long(ListLong[] segments, int segmentShift, int size) {
+            this.segments = segments;
+            this.segmentShift = segmentShift;
+            this.segmentMask = (1 << segmentShift) - 1;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long getLong(int index) {
+            return segments[index >>> segmentShift].getLong(index & segmentMask);
+        }
+
+        @Override
+        public void getLongs(int srcIndex, long[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size);
+            while (length > 0) {
+                int offset = srcIndex & segmentMask;
+                int n = Math.min(length, (1 << segmentShift) - offset);
+                segments[srcIndex >>> segmentShift].getLongs(offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size);
+            while (length > 0) {
+                int offset = srcIndex & segmentMask;
+                int n = Math.min(length, (1 << segmentShift) - offset);
+                segments[srcIndex >>> segmentShift].getDoubles(offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void setLong(int index, long value) {
+            segments[index >>> segmentShift].setLong(index & segmentMask, value);
+        }
+    }
+
+    /**
+     * A SegmentedList implementation for ints.
+     */
+    static class Int extends ListInt {
+        private final ListInt[] segments;
+        private final int segmentShift;
+        private final int segmentMask;
+        private final int size;
+
+        public Int(ListInt[] segments, int segmentShift, int size) {
+            this.segments = segments;
+            this.segmentShift = segmentShift;
+            this.segmentMask = (1 << segmentShift) - 1;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int getInt(int index) {
+            return segments[index >>> segmentShift].getInt(index & segmentMask);
+        }
+
+        @Override
+        public void getInts(int srcIndex, int[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size);
+            while (length > 0) {
+                int offset = srcIndex & segmentMask;
+                int n = Math.min(length, (1 << segmentShift) - offset);
+                segments[srcIndex >>> segmentShift].getInts(offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size);
+            while (length > 0) {
+                int offset = srcIndex & segmentMask;
+                int n = Math.min(length, (1 << segmentShift) - offset);
+                segments[srcIndex >>> segmentShift].getDoubles(offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void setInt(int index, int value) {
+            segments[index >>> segmentShift].setInt(index & segmentMask, value);
+        }
+    }
+
+    /**
+     * A SegmentedList implementation for shorts.
+     */
+    static class Short extends ListShort {
+        private final ListShort[] segments;
+        private final int segmentShift;
+        private final int segmentMask;
+        private final int size;
+
+        public Short(ListShort[] segments, int segmentShift, int size) {
+            this.segments = segments;
+            this.segmentShift = segmentShift;
+            this.segmentMask = (1 << segmentShift) - 1;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public short getShort(int index) {
+            return segments[index >>> segmentShift].getShort(index & segmentMask);
+        }
+
+        @Override
+        public void getShorts(int srcIndex, short[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size);
+            while (length > 0) {
+                int offset = srcIndex & segmentMask;
+                int n = Math.min(length, (1 << segmentShift) - offset);
+                segments[srcIndex >>> segmentShift].getShorts(offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size);
+            while (length > 0) {
+                int offset = srcIndex & segmentMask;
+                int n = Math.min(length, (1 << segmentShift) - offset);
+                segments[srcIndex >>> segmentShift].getDoubles(offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void setShort(int index, short value) {
+            segments[index >>> segmentShift].setShort(index & segmentMask, value);
+        }
+    }
+
+    /**
+     * A SegmentedList implementation for bytes.
+     */
+    static class Byte extends ListByte {
+        private final ListByte[] segments;
+        private final int segmentShift;
+        private final int segmentMask;
+        private final int size;
+
+        public Byte(ListByte[] segments, int segmentShift, int size) {
+            this.segments = segments;
+            this.segmentShift = segmentShift;
+            this.segmentMask = (1 << segmentShift) - 1;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public byte getByte(int index) {
+            return segments[index >>> segmentShift].getByte(index & segmentMask);
+        }
+
+        @Override
+        public void getBytes(int srcIndex, byte[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size);
+            while (length > 0) {
+                int offset = srcIndex & segmentMask;
+                int n = Math.min(length, (1 << segmentShift) - offset);
+                segments[srcIndex >>> segmentShift].getBytes(offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            checkRange(srcIndex, length, size);
+            while (length > 0) {
+                int offset = srcIndex & segmentMask;
+                int n = Math.min(length, (1 << segmentShift) - offset);
+                segments[srcIndex >>> segmentShift].getDoubles(offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void setByte(int index, byte value) {
+            segments[index >>> segmentShift].setByte(index & segmentMask, value);
+        }
+    }
+}
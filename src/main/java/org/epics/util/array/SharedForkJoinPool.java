@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The fork-join pool used by the parallel operations of the library, such
+ * as {@link ListNumbers#parallelSortedView(ListNumber) } and the parallel
+ * statistics.
+ * <p>
+ * Java 7 has no common pool, so a single pool is shared instead of
+ * creating one for each operation. The pool is created the first time
+ * it is needed, with one thread per processor. The pool itself is not
+ * exposed, so that it cannot be shut down: tasks can only be run in it.
+ *
+ * @author carcassi
+ */
+public final class SharedForkJoinPool {
+
+    private SharedForkJoinPool() {
+        // prevent instances
+    }
+
+    private static class Holder {
+        private static final ForkJoinPool pool = new ForkJoinPool();
+    }
+
+    /**
+     * Runs the task in the shared pool, waiting for its completion.
+     *
+     * @param <T> the type of the result
+     * @param task the task to run
+     * @return the result of the task
+     */
+    public static <T> T invoke(ForkJoinTask<T> task) {
+        return Holder.pool.invoke(task);
+    }
+
+    /**
+     * The parallelism of the shared pool.
+     *
+     * @return the target number of threads
+     */
+    public static int getParallelism() {
+        return Holder.pool.getParallelism();
+    }
+}
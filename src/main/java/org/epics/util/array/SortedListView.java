@@ -4,6 +4,8 @@
  */
 package org.epics.util.array;
 
+import java.util.concurrent.RecursiveAction;
+
 /**
  * A sorted view of a list.
  *
@@ -11,9 +13,14 @@ package org.epics.util.array;
  */
 public class SortedListView extends ListDouble {
 
+    // Ranges up to this size are sorted by insertion
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
     private ListNumber values;
     private ListInt indexes;
     private int[] indexArray;
+    // The values in sorted order, if they were copied out for sorting
+    private double[] sortedValues;
 
     SortedListView(ListNumber values) {
         this.values = values;
@@ -32,23 +39,31 @@ public class SortedListView extends ListDouble {
 
     @Override
     public double getDouble(int index) {
+        if (sortedValues != null) {
+            return sortedValues[index];
+        }
         return values.getDouble(indexes.getInt(index));
     }
 
     @Override
-    public int size() {
-        return values.size();
+    public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+        if (sortedValues != null) {
+            System.arraycopy(sortedValues, srcIndex, dst, dstIndex, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = values.getDouble(indexes.getInt(srcIndex + i));
+        }
     }
 
-    void exhange(int i, int j) {
-        int b = indexArray[i];
-        indexArray[i] = indexArray[j];
-        indexArray[j] = b;
+    @Override
+    public int size() {
+        return values.size();
     }
 
     /**
      * Returns the index map of the sorted view.
-     * 
+     *
      * @return a list of integers
      */
     public ListInt getIndexes() {
@@ -56,50 +71,249 @@ public class SortedListView extends ListDouble {
     }
 
     /**
-     * Quick-sort the view. The original list is left alone,
+     * Sorts the view. The original list is left alone,
      * and the internal list is modified.
-     * 
+     * <p>
+     * The values are copied once into an array, which is sorted together
+     * with the indexes. NaNs are sorted after all other values.
+     * The unstable sort is an introsort, which is O(n log n) in
+     * the worst case and does not use extra memory; the stable sort
+     * is a merge sort, which needs a buffer of the same size.
+     *
      * @param list the view to sort
+     * @param stable whether equal values need to keep their original order
      */
-    static void quicksort(SortedListView list) {
-        quicksort(list, 0, list.size() - 1);
+    static void sort(SortedListView list, boolean stable) {
+        double[] keys = new double[list.size()];
+        list.values.getDoubles(0, keys, 0, keys.length);
+        if (stable) {
+            mergesort(keys, list.indexArray, new double[keys.length], new int[keys.length], 0, keys.length);
+        } else {
+            introsort(keys, list.indexArray, 0, keys.length, 2 * (31 - Integer.numberOfLeadingZeros(keys.length)));
+        }
+        list.sortedValues = keys;
     }
 
-    private static void quicksort(SortedListView list, int left, int right) {
-        if (right <= left) {
-            return;
+    /**
+     * Sorts the view using the fork-join pool. Each task copies out and
+     * sorts its own range, and the sorted ranges are then merged. The
+     * result is the same as the stable sort.
+     *
+     * @param list the view to sort
+     * @param leafSize the size under which a range is sorted by a single task
+     */
+    static void parallelSort(SortedListView list, int leafSize) {
+        int size = list.size();
+        double[] keys = new double[size];
+        SharedForkJoinPool.invoke(new SortTask(list.values, keys, list.indexArray,
+                new double[size], new int[size], 0, size, leafSize));
+        list.sortedValues = keys;
+    }
+
+    /**
+     * The parallelism of the pool used by {@link #parallelSort(SortedListView, int) }.
+     *
+     * @return the target number of threads
+     */
+    static int getParallelism() {
+        return SharedForkJoinPool.getParallelism();
+    }
+
+    private static class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ListNumber values;
+        private final double[] keys;
+        private final int[] indexes;
+        private final double[] keyBuffer;
+        private final int[] indexBuffer;
+        private final int low;
+        private final int high;
+        private final int leafSize;
+
+        SortTask(ListNumber values, double[] keys, int[] indexes, double[] keyBuffer, int[] indexBuffer,
+                int low, int high, int leafSize) {
+            this.values = values;
+            this.keys = keys;
+            this.indexes = indexes;
+            this.keyBuffer = keyBuffer;
+            this.indexBuffer = indexBuffer;
+            this.low = low;
+            this.high = high;
+            this.leafSize = leafSize;
         }
-        int i = partition(list, left, right);
-        quicksort(list, left, i - 1);
-        quicksort(list, i + 1, right);
-    }
-
-// partition a[left] to a[right], assumes left < right
-    private static int partition(SortedListView list,
-            int left, int right) {
-        int i = left - 1;
-        int j = right;
-        while (true) {
-            while (less(list.getDouble(++i), list.getDouble(right)))      // find item on left to swap
-            ;                               // a[right] acts as sentinel
-            while (less(list.getDouble(right), list.getDouble(--j))) // find item on right to swap
-            {
-                if (j == left) {
-                    break;           // don't go out-of-bounds
+
+        @Override
+        protected void compute() {
+            if (high - low <= leafSize) {
+                values.getDoubles(low, keys, low, high - low);
+                mergesort(keys, indexes, keyBuffer, indexBuffer, low, high);
+                return;
+            }
+
+            // The two halves and their merges only touch their own
+            // range of the arrays and of the buffers
+            int mid = (low + high) >>> 1;
+            SortTask left = new SortTask(values, keys, indexes, keyBuffer, indexBuffer, low, mid, leafSize);
+            SortTask right = new SortTask(values, keys, indexes, keyBuffer, indexBuffer, mid, high, leafSize);
+            left.fork();
+            right.compute();
+            left.join();
+            merge(keys, indexes, keyBuffer, indexBuffer, low, mid, high);
+        }
+    }
+
+    private static void introsort(double[] keys, int[] indexes, int low, int high, int depth) {
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            if (depth == 0) {
+                // Too many bad pivots: fall back to heapsort
+                heapsort(keys, indexes, low, high);
+                return;
+            }
+            depth--;
+
+            medianOfThree(keys, indexes, low, (low + high) >>> 1, high - 1);
+            double pivot = keys[low];
+
+            // Three-way partition, so that runs of equal values are
+            // excluded from further sorting:
+            // [low, lt) < pivot, [lt, i) == pivot, [gt, high) > pivot
+            int lt = low;
+            int i = low + 1;
+            int gt = high;
+            while (i < gt) {
+                double key = keys[i];
+                if (less(key, pivot)) {
+                    swap(keys, indexes, lt++, i++);
+                } else if (less(pivot, key)) {
+                    swap(keys, indexes, i, --gt);
+                } else {
+                    i++;
                 }
             }
-            if (i >= j) {
-                break;                  // check if pointers cross
+
+            // Recurse on the smaller side, loop on the larger one, so that
+            // the stack depth is at most log n
+            if (lt - low < high - gt) {
+                introsort(keys, indexes, low, lt, depth);
+                low = gt;
+            } else {
+                introsort(keys, indexes, gt, high, depth);
+                high = lt;
             }
-            list.exhange(i, j);               // swap two elements into place
         }
-        list.exhange(i, right);               // swap with partition element
-        return i;
+        insertionSort(keys, indexes, low, high);
+    }
+
+    // Moves the median of the three elements to position a
+    private static void medianOfThree(double[] keys, int[] indexes, int a, int b, int c) {
+        if (less(keys[b], keys[a])) {
+            swap(keys, indexes, a, b);
+        }
+        if (less(keys[c], keys[b])) {
+            swap(keys, indexes, b, c);
+            if (less(keys[b], keys[a])) {
+                swap(keys, indexes, a, b);
+            }
+        }
+        swap(keys, indexes, a, b);
+    }
+
+    private static void heapsort(double[] keys, int[] indexes, int low, int high) {
+        int n = high - low;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(keys, indexes, low, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swap(keys, indexes, low, low + end);
+            siftDown(keys, indexes, low, 0, end);
+        }
+    }
+
+    private static void siftDown(double[] keys, int[] indexes, int offset, int root, int n) {
+        while (2 * root + 1 < n) {
+            int child = 2 * root + 1;
+            if (child + 1 < n && less(keys[offset + child], keys[offset + child + 1])) {
+                child++;
+            }
+            if (!less(keys[offset + root], keys[offset + child])) {
+                return;
+            }
+            swap(keys, indexes, offset + root, offset + child);
+            root = child;
+        }
+    }
+
+    static void mergesort(double[] keys, int[] indexes, double[] keyBuffer, int[] indexBuffer, int low, int high) {
+        if (high - low <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(keys, indexes, low, high);
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        mergesort(keys, indexes, keyBuffer, indexBuffer, low, mid);
+        mergesort(keys, indexes, keyBuffer, indexBuffer, mid, high);
+        merge(keys, indexes, keyBuffer, indexBuffer, low, mid, high);
+    }
+
+    /**
+     * Merges the sorted ranges [low, mid) and [mid, high). Only the first
+     * range is copied to the buffer; on equal values the first range wins,
+     * which keeps the merge stable.
+     */
+    static void merge(double[] keys, int[] indexes, double[] keyBuffer, int[] indexBuffer, int low, int mid, int high) {
+        if (!less(keys[mid], keys[mid - 1])) {
+            // Already in order
+            return;
+        }
+        System.arraycopy(keys, low, keyBuffer, low, mid - low);
+        System.arraycopy(indexes, low, indexBuffer, low, mid - low);
+        int i = low;
+        int j = mid;
+        int k = low;
+        while (i < mid && j < high) {
+            if (less(keys[j], keyBuffer[i])) {
+                keys[k] = keys[j];
+                indexes[k] = indexes[j];
+                j++;
+            } else {
+                keys[k] = keyBuffer[i];
+                indexes[k] = indexBuffer[i];
+                i++;
+            }
+            k++;
+        }
+        System.arraycopy(keyBuffer, i, keys, k, mid - i);
+        System.arraycopy(indexBuffer, i, indexes, k, mid - i);
+    }
+
+    static void insertionSort(double[] keys, int[] indexes, int low, int high) {
+        for (int i = low + 1; i < high; i++) {
+            double key = keys[i];
+            int index = indexes[i];
+            int j = i - 1;
+            while (j >= low && less(key, keys[j])) {
+                keys[j + 1] = keys[j];
+                indexes[j + 1] = indexes[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            indexes[j + 1] = index;
+        }
+    }
+
+    private static void swap(double[] keys, int[] indexes, int i, int j) {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int index = indexes[i];
+        indexes[i] = indexes[j];
+        indexes[j] = index;
     }
 
-    // is x < y ?
-    private static boolean less(double x, double y) {
-        return (x < y);
+    // is x < y ? NaN is greater than any other value
+    static boolean less(double x, double y) {
+        return x < y || (y != y && x == x);
     }
 
 }
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Window functions, typically applied to a waveform before computing
+ * its spectrum. The coefficients are symmetric, and the ones for the
+ * most recently used sizes are cached.
+ *
+ * @author carcassi
+ */
+public enum Window {
+
+    /**
+     * All coefficients equal to 1.
+     */
+    RECTANGULAR {
+        @Override
+        double coefficient(double phase) {
+            return 1.0;
+        }
+    },
+
+    /**
+     * Hann window: 0.5 - 0.5 cos(phase).
+     */
+    HANN {
+        @Override
+        double coefficient(double phase) {
+            return 0.5 - 0.5 * Math.cos(phase);
+        }
+    },
+
+    /**
+     * Hamming window: 0.54 - 0.46 cos(phase).
+     */
+    HAMMING {
+        @Override
+        double coefficient(double phase) {
+            return 0.54 - 0.46 * Math.cos(phase);
+        }
+    },
+
+    /**
+     * Blackman window: 0.42 - 0.5 cos(phase) + 0.08 cos(2 phase).
+     */
+    BLACKMAN {
+        @Override
+        double coefficient(double phase) {
+            return 0.42 - 0.5 * Math.cos(phase) + 0.08 * Math.cos(2 * phase);
+        }
+    };
+
+    /**
+     * The number of sizes for which the coefficients are kept, for each
+     * window. Other sizes are computed again when needed.
+     */
+    static final int MAX_CACHED_SIZES = 16;
+
+    // Least recently used first
+    private final Map<Integer, ArrayDouble> cache = new LinkedHashMap<Integer, ArrayDouble>(MAX_CACHED_SIZES, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ArrayDouble> eldest) {
+            return size() > MAX_CACHED_SIZES;
+        }
+    };
+
+    /**
+     * The value of the window at the given phase, which goes from 0 to
+     * 2 pi across the window.
+     */
+    abstract double coefficient(double phase);
+
+    /**
+     * The coefficients of the window of the given size.
+     *
+     * @param size the number of coefficients
+     * @return a read-only list with the coefficients
+     */
+    public ListDouble coefficients(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Window size must not be negative (was " + size + ")");
+        }
+        synchronized (cache) {
+            ArrayDouble coefficients = cache.get(size);
+            if (coefficients == null) {
+                double[] values = new double[size];
+                if (size == 1) {
+                    values[0] = 1.0;
+                } else {
+                    for (int i = 0; i < size; i++) {
+                        values[i] = coefficient(2 * Math.PI * i / (size - 1));
+                    }
+                }
+                coefficients = new ArrayDouble(values);
+                cache.put(size, coefficients);
+            }
+            return coefficients;
+        }
+    }
+
+    /**
+     * Multiplies the data by the window of the same size. The result is
+     * a view, like the other operations in {@link ListMath}.
+     *
+     * @param data a list of numbers
+     * @return the data multiplied by the window
+     */
+    public ListDouble apply(ListNumber data) {
+        return ListMath.multiply(data, coefficients(data.size()));
+    }
+
+    /**
+     * Multiplies the data by the window of the same size, storing the
+     * result in the given array.
+     *
+     * @param data a list of numbers
+     * @param result the array where to store the result; can be null, in
+     *        which case a new array is created
+     * @return a list that wraps the result array
+     */
+    public ArrayDouble apply(ListNumber data, double[] result) {
+        return ListMath.multiply(data, coefficients(data.size()), result);
+    }
+}
@@ -0,0 +1,435 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import org.epics.util.array.CollectionByte;
+import org.epics.util.array.CollectionDouble;
+import org.epics.util.array.CollectionFloat;
+import org.epics.util.array.CollectionInt;
+import org.epics.util.array.CollectionLong;
+import org.epics.util.array.CollectionNumber;
+import org.epics.util.array.CollectionNumbers;
+import org.epics.util.array.CollectionShort;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.ListNumbers;
+
+/**
+ * Encodes numeric collections in a compact binary format, and decodes
+ * them as lists that read directly from the encoded bytes.
+ * <p>
+ * The format is an 8 byte header followed by the raw values:
+ * <ul>
+ * <li>byte 0: the type of the elements (1 byte, 2 short, 3 int, 4 long, 5 float, 6 double)</li>
+ * <li>byte 1: the byte order of the values (0 little endian, 1 big endian)</li>
+ * <li>byte 2: the version of the format (1)</li>
+ * <li>byte 3: reserved (0)</li>
+ * <li>bytes 4-7: the number of elements, as a little endian int</li>
+ * </ul>
+ * The encoder always writes the values in little endian order; the decoder
+ * reads both orders.
+ *
+ * @author carcassi
+ */
+public final class BinaryCodec {
+
+    /**
+     * The size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 8;
+
+    static final byte TYPE_BYTE = 1;
+    static final byte TYPE_SHORT = 2;
+    static final byte TYPE_INT = 3;
+    static final byte TYPE_LONG = 4;
+    static final byte TYPE_FLOAT = 5;
+    static final byte TYPE_DOUBLE = 6;
+    private static final byte LITTLE_ENDIAN = 0;
+    private static final byte BIG_ENDIAN = 1;
+    private static final byte VERSION = 1;
+    private static final int BLOCK_SIZE = 1024;
+    private static final int CHANNEL_BUFFER_SIZE = 8192;
+
+    private BinaryCodec() {
+        // prevent instances
+    }
+
+    /**
+     * The number of bytes needed to encode the given collection.
+     *
+     * @param data the collection to encode
+     * @return the size in bytes
+     * @throws IllegalArgumentException if the size is more than
+     *         {@link Integer#MAX_VALUE} bytes
+     */
+    public static int encodedSize(CollectionNumber data) {
+        long encodedSize = encodedSize(typeOf(data), data.size());
+        if (encodedSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Encoded data would take " + encodedSize + " bytes, more than fit in a buffer");
+        }
+        return (int) encodedSize;
+    }
+
+    private static long encodedSize(byte type, int size) {
+        return HEADER_SIZE + (long) size * elementSize(type);
+    }
+
+    /**
+     * Encodes the collection in a new buffer. The buffer is ready to be read
+     * (positioned at 0, with the limit at the end of the data).
+     *
+     * @param data the collection to encode
+     * @return the encoded data
+     * @throws IllegalArgumentException if the encoded data is more than
+     *         {@link Integer#MAX_VALUE} bytes
+     */
+    public static ByteBuffer encode(CollectionNumber data) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(data));
+        encode(data, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Encodes the collection in the given buffer, starting at its current
+     * position. The position of the buffer is advanced past the encoded data;
+     * the byte order of the buffer is not changed.
+     *
+     * @param data the collection to encode
+     * @param dst the destination buffer
+     * @throws BufferOverflowException if the buffer does not have
+     *         enough space left
+     */
+    public static void encode(CollectionNumber data, ByteBuffer dst) {
+        byte type = typeOf(data);
+        ListNumber list = toList(data, type);
+        int size = list.size();
+        if (dst.remaining() < encodedSize(type, size)) {
+            throw new BufferOverflowException();
+        }
+        ByteBuffer out = dst.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        writeHeader(type, size, out);
+        writePayload(list, type, 0, size, out);
+        dst.position(out.position());
+    }
+
+    /**
+     * Encodes the collection to the given channel. The values are written
+     * in blocks, so that the whole encoded data is never in memory at once.
+     *
+     * @param data the collection to encode
+     * @param channel the destination channel
+     * @throws IOException if the channel cannot be written
+     */
+    public static void encode(CollectionNumber data, WritableByteChannel channel) throws IOException {
+        byte type = typeOf(data);
+        ListNumber list = toList(data, type);
+        int elementSize = elementSize(type);
+        int size = list.size();
+        ByteBuffer buffer = ByteBuffer.allocate(CHANNEL_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        writeHeader(type, size, buffer);
+        int index = 0;
+        do {
+            int length = Math.min(size - index, buffer.remaining() / elementSize);
+            writePayload(list, type, index, index + length, buffer);
+            index += length;
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        } while (index < size);
+    }
+
+    /**
+     * Decodes a read-only list from the buffer, starting at its current
+     * position. The list reads directly from the buffer, without copying.
+     * The position of the buffer is advanced past the encoded data.
+     *
+     * @param src the encoded data
+     * @return a list backed by the buffer
+     * @throws IllegalArgumentException if the data is not valid
+     */
+    public static ListNumber decode(ByteBuffer src) {
+        return decode(src, true);
+    }
+
+    /**
+     * Decodes a list from the buffer, starting at its current position. The
+     * list reads (and writes) directly from the buffer, without copying.
+     * The position of the buffer is advanced past the encoded data.
+     *
+     * @param src the encoded data
+     * @param readOnly if false the list allows writes to the buffer
+     * @return a list backed by the buffer
+     * @throws IllegalArgumentException if the data is not valid
+     */
+    public static ListNumber decode(ByteBuffer src, boolean readOnly) {
+        if (src.remaining() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Incomplete header: " + src.remaining() + " bytes");
+        }
+        int position = src.position();
+        byte type = src.get(position);
+        ByteOrder order = byteOrder(src.get(position + 1));
+        if (src.get(position + 2) != VERSION) {
+            throw new IllegalArgumentException("Unsupported version " + src.get(position + 2));
+        }
+        int size = src.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt(position + 4);
+        if (size < 0) {
+            throw new IllegalArgumentException("Invalid size " + size);
+        }
+        long payloadSize = (long) size * elementSize(type);
+        if (src.remaining() - HEADER_SIZE < payloadSize) {
+            throw new IllegalArgumentException("Incomplete data: expected " + payloadSize + " bytes, found " + (src.remaining() - HEADER_SIZE));
+        }
+
+        ByteBuffer payload = src.duplicate();
+        payload.position(position + HEADER_SIZE);
+        payload.limit(position + HEADER_SIZE + (int) payloadSize);
+        src.position(payload.limit());
+        return ListNumbers.toListNumber(payload, elementClass(type), order, readOnly);
+    }
+
+    /**
+     * Reads the encoded data from the channel and decodes it. The data is read
+     * into a new buffer, which backs the returned list.
+     *
+     * @param channel the source channel
+     * @return a list backed by a new buffer
+     * @throws IOException if the channel cannot be read or ends before the data
+     * @throws IllegalArgumentException if the data is not valid
+     */
+    public static ListNumber decode(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header);
+        int size = header.getInt(4);
+        long totalSize = HEADER_SIZE + (long) size * elementSize(header.get(0));
+        if (size < 0 || totalSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid size " + size);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) totalSize);
+        header.flip();
+        buffer.put(header);
+        readFully(channel, buffer);
+        buffer.flip();
+        return decode(buffer);
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Channel ended before the end of the data");
+            }
+        }
+    }
+
+    private static void writeHeader(byte type, int size, ByteBuffer out) {
+        out.put(type);
+        out.put(LITTLE_ENDIAN);
+        out.put(VERSION);
+        out.put((byte) 0);
+        out.putInt(size);
+    }
+
+    /**
+     * Writes the elements in the given range at the position of the buffer,
+     * which must be in little endian order, and advances the position.
+     */
+    private static void writePayload(ListNumber data, byte type, int fromIndex, int toIndex, ByteBuffer out) {
+        int length = toIndex - fromIndex;
+        int position = out.position();
+        switch (type) {
+            case TYPE_BYTE: {
+                byte[] array = CollectionNumbers.wrappedByteArray(data);
+                if (array != null) {
+                    out.put(array, fromIndex, length);
+                } else {
+                    byte[] block = new byte[Math.min(BLOCK_SIZE, length)];
+                    for (int i = fromIndex; i < toIndex; i += block.length) {
+                        int n = Math.min(block.length, toIndex - i);
+                        data.getBytes(i, block, 0, n);
+                        out.put(block, 0, n);
+                    }
+                }
+                return;
+            }
+            case TYPE_SHORT: {
+                ShortBuffer view = out.asShortBuffer();
+                short[] array = CollectionNumbers.wrappedShortArray(data);
+                if (array != null) {
+                    view.put(array, fromIndex, length);
+                } else {
+                    short[] block = new short[Math.min(BLOCK_SIZE, length)];
+                    for (int i = fromIndex; i < toIndex; i += block.length) {
+                        int n = Math.min(block.length, toIndex - i);
+                        data.getShorts(i, block, 0, n);
+                        view.put(block, 0, n);
+                    }
+                }
+                break;
+            }
+            case TYPE_INT: {
+                IntBuffer view = out.asIntBuffer();
+                int[] array = CollectionNumbers.wrappedIntArray(data);
+                if (array != null) {
+                    view.put(array, fromIndex, length);
+                } else {
+                    int[] block = new int[Math.min(BLOCK_SIZE, length)];
+                    for (int i = fromIndex; i < toIndex; i += block.length) {
+                        int n = Math.min(block.length, toIndex - i);
+                        data.getInts(i, block, 0, n);
+                        view.put(block, 0, n);
+                    }
+                }
+                break;
+            }
+            case TYPE_LONG: {
+                LongBuffer view = out.asLongBuffer();
+                long[] array = CollectionNumbers.wrappedLongArray(data);
+                if (array != null) {
+                    view.put(array, fromIndex, length);
+                } else {
+                    long[] block = new long[Math.min(BLOCK_SIZE, length)];
+                    for (int i = fromIndex; i < toIndex; i += block.length) {
+                        int n = Math.min(block.length, toIndex - i);
+                        data.getLongs(i, block, 0, n);
+                        view.put(block, 0, n);
+                    }
+                }
+                break;
+            }
+            case TYPE_FLOAT: {
+                FloatBuffer view = out.asFloatBuffer();
+                float[] array = CollectionNumbers.wrappedFloatArray(data);
+                if (array != null) {
+                    view.put(array, fromIndex, length);
+                } else {
+                    float[] block = new float[Math.min(BLOCK_SIZE, length)];
+                    for (int i = fromIndex; i < toIndex; i += block.length) {
+                        int n = Math.min(block.length, toIndex - i);
+                        data.getFloats(i, block, 0, n);
+                        view.put(block, 0, n);
+                    }
+                }
+                break;
+            }
+            default: {
+                DoubleBuffer view = out.asDoubleBuffer();
+                double[] array = CollectionNumbers.wrappedDoubleArray(data);
+                if (array != null) {
+                    view.put(array, fromIndex, length);
+                } else {
+                    double[] block = new double[Math.min(BLOCK_SIZE, length)];
+                    for (int i = fromIndex; i < toIndex; i += block.length) {
+                        int n = Math.min(block.length, toIndex - i);
+                        data.getDoubles(i, block, 0, n);
+                        view.put(block, 0, n);
+                    }
+                }
+                break;
+            }
+        }
+        // The typed views do not move the position of the byte buffer
+        out.position(position + length * elementSize(type));
+    }
+
+    static byte typeOf(CollectionNumber data) {
+        if (data instanceof CollectionDouble) {
+            return TYPE_DOUBLE;
+        } else if (data instanceof CollectionFloat) {
+            return TYPE_FLOAT;
+        } else if (data instanceof CollectionLong) {
+            return TYPE_LONG;
+        } else if (data instanceof CollectionInt) {
+            return TYPE_INT;
+        } else if (data instanceof CollectionShort) {
+            return TYPE_SHORT;
+        } else if (data instanceof CollectionByte) {
+            return TYPE_BYTE;
+        }
+        throw new IllegalArgumentException("Unsupported collection type " + data.getClass().getName());
+    }
+
+    /**
+     * Returns the collection as a list, copying it if needed.
+     */
+    private static ListNumber toList(CollectionNumber data, byte type) {
+        if (data instanceof ListNumber) {
+            return (ListNumber) data;
+        }
+        switch (type) {
+            case TYPE_BYTE:
+                return ListNumbers.toListNumber(CollectionNumbers.byteArrayCopyOf(data));
+            case TYPE_SHORT:
+                return ListNumbers.toListNumber(CollectionNumbers.shortArrayCopyOf(data));
+            case TYPE_INT:
+                return ListNumbers.toListNumber(CollectionNumbers.intArrayCopyOf(data));
+            case TYPE_LONG:
+                return ListNumbers.toListNumber(CollectionNumbers.longArrayCopyOf(data));
+            case TYPE_FLOAT:
+                return ListNumbers.toListNumber(CollectionNumbers.floatArrayCopyOf(data));
+            default:
+                return ListNumbers.toListNumber(CollectionNumbers.doubleArrayCopyOf(data));
+        }
+    }
+
+    static int elementSize(byte type) {
+        switch (type) {
+            case TYPE_BYTE:
+                return 1;
+            case TYPE_SHORT:
+                return 2;
+            case TYPE_INT:
+            case TYPE_FLOAT:
+                return 4;
+            case TYPE_LONG:
+            case TYPE_DOUBLE:
+                return 8;
+            default:
+                throw new IllegalArgumentException("Invalid type " + type);
+        }
+    }
+
+    private static Class<?> elementClass(byte type) {
+        switch (type) {
+            case TYPE_BYTE:
+                return byte.class;
+            case TYPE_SHORT:
+                return short.class;
+            case TYPE_INT:
+                return int.class;
+            case TYPE_LONG:
+                return long.class;
+            case TYPE_FLOAT:
+                return float.class;
+            case TYPE_DOUBLE:
+                return double.class;
+            default:
+                throw new IllegalArgumentException("Invalid type " + type);
+        }
+    }
+
+    private static ByteOrder byteOrder(byte order) {
+        switch (order) {
+            case LITTLE_ENDIAN:
+                return ByteOrder.LITTLE_ENDIAN;
+            case BIG_ENDIAN:
+                return ByteOrder.BIG_ENDIAN;
+            default:
+                throw new IllegalArgumentException("Invalid byte order " + order);
+        }
+    }
+}
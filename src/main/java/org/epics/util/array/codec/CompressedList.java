@@ -0,0 +1,281 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.codec;
+
+import java.nio.ByteBuffer;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListFloat;
+import org.epics.util.array.ListInt;
+import org.epics.util.array.ListLong;
+
+/**
+ * Read-only lists on top of data compressed by {@link CompressionCodec}.
+ * A block is decompressed the first time one of its values is read; the
+ * last block decompressed is kept, so that sequential access decompresses
+ * each block only once.
+ *
+ * @author carcassi
+ */
+class CompressedList {
+
+    /**
+     * A decompressed block. It is never modified after creation, so that
+     * it can be safely shared between threads.
+     */
+    private static class Block {
+
+        private final int index;
+        private final long[] values;
+
+        Block(int index, long[] values) {
+            this.index = index;
+            this.values = values;
+        }
+    }
+
+    /**
+     * The compressed blocks, shared by the list implementations. Values
+     * are decompressed as longs: see CompressionCodec.readRaw.
+     */
+    static class Blocks {
+
+        private final ByteBuffer data;
+        private final int[] offsets;
+        private final int size;
+        private final int blockSize;
+        private final byte encoding;
+        private volatile Block cache;
+
+        Blocks(ByteBuffer data, int[] offsets, int size, int blockSize, byte encoding) {
+            this.data = data;
+            this.offsets = offsets;
+            this.size = size;
+            this.blockSize = blockSize;
+            this.encoding = encoding;
+        }
+
+        long[] block(int blockIndex) {
+            Block block = cache;
+            if (block == null || block.index != blockIndex) {
+                long[] values = new long[Math.min(blockSize, size - blockIndex * blockSize)];
+                if (encoding == CompressionCodec.ENCODING_XOR) {
+                    CompressionCodec.decodeXor(data, offsets[blockIndex], values, values.length);
+                } else {
+                    CompressionCodec.decodeDeltaVarint(data, offsets[blockIndex], values, values.length);
+                }
+                block = new Block(blockIndex, values);
+                cache = block;
+            }
+            return block.values;
+        }
+
+        long get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return block(index / blockSize)[index % blockSize];
+        }
+
+        void checkRange(int srcIndex, int length) {
+            if (srcIndex < 0 || length < 0 || srcIndex + length > size) {
+                throw new IndexOutOfBoundsException("Range: " + srcIndex + " - " + (srcIndex + length) + ", Size: " + size);
+            }
+        }
+    }
+
+    /**
+     * A CompressedList implementation for doubles.
+     */
+    static class Double extends ListDouble {
+        private final Blocks blocks;
+
+        public Double(Blocks blocks) {
+            this.blocks = blocks;
+        }
+
+        @Override
+        public int size() {
+            return blocks.size;
+        }
+
+        @Override
+        public double getDouble(int index) {
+            return java.lang.Double.longBitsToDouble(blocks.get(index));
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            blocks.checkRange(srcIndex, length);
+            while (length > 0) {
+                long[] values = blocks.block(srcIndex / blocks.blockSize);
+                int offset = srcIndex % blocks.blockSize;
+                int n = Math.min(length, values.length - offset);
+                for (int i = 0; i < n; i++) {
+                    dst[dstIndex + i] = java.lang.Double.longBitsToDouble(values[offset + i]);
+                }
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+    }
+
+    /**
+     * A CompressedList implementation for floats.
+     */
+    static class Float extends ListFloat {
+        private final Blocks blocks;
+
+        public Float(Blocks blocks) {
+            this.blocks = blocks;
+        }
+
+        @Override
+        public int size() {
+            return blocks.size;
+        }
+
+        @Override
+        public float getFloat(int index) {
+            return java.lang.Float.intBitsToFloat((int) (blocks.get(index) >>> 32));
+        }
+
+        @Override
+        public void getFloats(int srcIndex, float[] dst, int dstIndex, int length) {
+            blocks.checkRange(srcIndex, length);
+            while (length > 0) {
+                long[] values = blocks.block(srcIndex / blocks.blockSize);
+                int offset = srcIndex % blocks.blockSize;
+                int n = Math.min(length, values.length - offset);
+                for (int i = 0; i < n; i++) {
+                    dst[dstIndex + i] = java.lang.Float.intBitsToFloat((int) (values[offset + i] >>> 32));
+                }
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            blocks.checkRange(srcIndex, length);
+            while (length > 0) {
+                long[] values = blocks.block(srcIndex / blocks.blockSize);
+                int offset = srcIndex % blocks.blockSize;
+                int n = Math.min(length, values.length - offset);
+                for (int i = 0; i < n; i++) {
+                    dst[dstIndex + i] = java.lang.Float.intBitsToFloat((int) (values[offset + i] >>> 32));
+                }
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+    }
+
+    /**
+     * A CompressedList implementation for longs.
+     */
+    static class Long extends ListLong {
+        private final Blocks blocks;
+
+        public Long(Blocks blocks) {
+            this.blocks = blocks;
+        }
+
+        @Override
+        public int size() {
+            return blocks.size;
+        }
+
+        @Override
+        public long getLong(int index) {
+            return blocks.get(index);
+        }
+
+        @Override
+        public void getLongs(int srcIndex, long[] dst, int dstIndex, int length) {
+            blocks.checkRange(srcIndex, length);
+            while (length > 0) {
+                long[] values = blocks.block(srcIndex / blocks.blockSize);
+                int offset = srcIndex % blocks.blockSize;
+                int n = Math.min(length, values.length - offset);
+                System.arraycopy(values, offset, dst, dstIndex, n);
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            blocks.checkRange(srcIndex, length);
+            while (length > 0) {
+                long[] values = blocks.block(srcIndex / blocks.blockSize);
+                int offset = srcIndex % blocks.blockSize;
+                int n = Math.min(length, values.length - offset);
+                for (int i = 0; i < n; i++) {
+                    dst[dstIndex + i] = values[offset + i];
+                }
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+    }
+
+    /**
+     * A CompressedList implementation for ints.
+     */
+    static class Int extends ListInt {
+        private final Blocks blocks;
+
+        public Int(Blocks blocks) {
+            this.blocks = blocks;
+        }
+
+        @Override
+        public int size() {
+            return blocks.size;
+        }
+
+        @Override
+        public int getInt(int index) {
+            return (int) blocks.get(index);
+        }
+
+        @Override
+        public void getInts(int srcIndex, int[] dst, int dstIndex, int length) {
+            blocks.checkRange(srcIndex, length);
+            while (length > 0) {
+                long[] values = blocks.block(srcIndex / blocks.blockSize);
+                int offset = srcIndex % blocks.blockSize;
+                int n = Math.min(length, values.length - offset);
+                for (int i = 0; i < n; i++) {
+                    dst[dstIndex + i] = (int) values[offset + i];
+                }
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void getDoubles(int srcIndex, double[] dst, int dstIndex, int length) {
+            blocks.checkRange(srcIndex, length);
+            while (length > 0) {
+                long[] values = blocks.block(srcIndex / blocks.blockSize);
+                int offset = srcIndex % blocks.blockSize;
+                int n = Math.min(length, values.length - offset);
+                for (int i = 0; i < n; i++) {
+                    dst[dstIndex + i] = values[offset + i];
+                }
+                srcIndex += n;
+                dstIndex += n;
+                length -= n;
+            }
+        }
+    }
+}
@@ -0,0 +1,428 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListFloat;
+import org.epics.util.array.ListInt;
+import org.epics.util.array.ListLong;
+import org.epics.util.array.ListNumber;
+
+/**
+ * Lossless compression for numeric lists, meant for slowly varying
+ * signals. Integer lists (ListInt and ListLong) store the difference
+ * between consecutive values, zigzag encoded so that small negative
+ * differences are also small, as variable length integers. Floating
+ * point lists (ListFloat and ListDouble) store the XOR of the bits of
+ * consecutive values, which for close values has many zeros at both
+ * ends, keeping only the meaningful bits (as in the Gorilla time
+ * series database).
+ * <p>
+ * The values are compressed in blocks that can be decompressed
+ * independently, so that the decoded list decompresses only the
+ * blocks that are accessed. The format is:
+ * <ul>
+ * <li>byte 0: the type of the elements (3 int, 4 long, 5 float, 6 double)</li>
+ * <li>byte 1: the encoding (1 delta/zigzag/varint, 2 XOR)</li>
+ * <li>byte 2: the version of the format (1)</li>
+ * <li>byte 3: reserved (0)</li>
+ * <li>bytes 4-7: the number of elements</li>
+ * <li>bytes 8-11: the number of elements in each block</li>
+ * <li>for each block, plus one, the offset of the block from the end of
+ * this table (the last one is the end of the data)</li>
+ * <li>the blocks</li>
+ * </ul>
+ * All the ints are little endian.
+ *
+ * @author carcassi
+ */
+public final class CompressionCodec {
+
+    /**
+     * The default number of values compressed together.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    static final byte ENCODING_DELTA_VARINT = 1;
+    static final byte ENCODING_XOR = 2;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    // Worst case for both encodings: a 64 bit value plus 13 control bits
+    private static final int MAX_BYTES_PER_VALUE = 10;
+
+    private CompressionCodec() {
+        // prevent instances
+    }
+
+    /**
+     * The maximum number of bytes that the compressed data may take.
+     *
+     * @param data the list to compress
+     * @param blockSize the number of values compressed together
+     * @return the maximum size in bytes
+     */
+    public static int maxEncodedSize(ListNumber data, int blockSize) {
+        int nBlocks = nBlocks(data.size(), blockSize);
+        long size = HEADER_SIZE + 4L * (nBlocks + 1) + (long) MAX_BYTES_PER_VALUE * data.size() + nBlocks;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("List too large: " + data.size() + " elements");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Compresses the list in a new buffer with the default block size. The
+     * buffer is ready to be read (positioned at 0, with the limit at the
+     * end of the data).
+     *
+     * @param data a ListInt, ListLong, ListFloat or ListDouble
+     * @return the compressed data
+     */
+    public static ByteBuffer encode(ListNumber data) {
+        return encode(data, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Compresses the list in a new buffer. The buffer is ready to be read
+     * (positioned at 0, with the limit at the end of the data).
+     *
+     * @param data a ListInt, ListLong, ListFloat or ListDouble
+     * @param blockSize the number of values compressed together
+     * @return the compressed data
+     */
+    public static ByteBuffer encode(ListNumber data, int blockSize) {
+        ByteBuffer buffer = ByteBuffer.allocate(maxEncodedSize(data, blockSize));
+        encode(data, blockSize, buffer);
+        return ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    /**
+     * Compresses the list in the given buffer, starting at its current
+     * position. The values are read and compressed one block at a time.
+     * The position of the buffer is advanced past the compressed data;
+     * the byte order of the buffer is not changed.
+     *
+     * @param data a ListInt, ListLong, ListFloat or ListDouble
+     * @param blockSize the number of values compressed together
+     * @param dst the destination buffer
+     * @throws java.nio.BufferOverflowException if the buffer does not have
+     *         enough space left; {@link #maxEncodedSize(org.epics.util.array.ListNumber, int) }
+     *         is always enough
+     */
+    public static void encode(ListNumber data, int blockSize, ByteBuffer dst) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive (was " + blockSize + ")");
+        }
+        byte type = BinaryCodec.typeOf(data);
+        byte encoding = encodingOf(type);
+        int size = data.size();
+        int nBlocks = nBlocks(size, blockSize);
+        ByteBuffer out = dst.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        out.put(type);
+        out.put(encoding);
+        out.put(VERSION);
+        out.put((byte) 0);
+        out.putInt(size);
+        out.putInt(blockSize);
+        int tableStart = out.position();
+        int dataStart = tableStart + 4 * (nBlocks + 1);
+        out.position(dataStart);
+
+        long[] raw = new long[Math.min(blockSize, size)];
+        Object block = newArray(type, raw.length);
+        for (int i = 0; i < nBlocks; i++) {
+            out.putInt(tableStart + 4 * i, out.position() - dataStart);
+            int from = i * blockSize;
+            int length = Math.min(blockSize, size - from);
+            readRaw(data, type, from, length, block, raw);
+            if (encoding == ENCODING_XOR) {
+                encodeXor(raw, length, out);
+            } else {
+                encodeDeltaVarint(raw, length, out);
+            }
+        }
+        out.putInt(tableStart + 4 * nBlocks, out.position() - dataStart);
+        dst.position(out.position());
+    }
+
+    /**
+     * Decodes the compressed list from the buffer, starting at its current
+     * position. The returned list reads from the buffer and decompresses
+     * each block when it is first accessed. The position of the buffer
+     * is advanced past the compressed data.
+     *
+     * @param src the compressed data
+     * @return a read-only list backed by the buffer
+     * @throws IllegalArgumentException if the data is not valid
+     */
+    public static ListNumber decode(ByteBuffer src) {
+        ByteBuffer in = src.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Incomplete header: " + in.remaining() + " bytes");
+        }
+        int start = in.position();
+        byte type = in.get(start);
+        byte encoding = in.get(start + 1);
+        if (in.get(start + 2) != VERSION) {
+            throw new IllegalArgumentException("Unsupported version " + in.get(start + 2));
+        }
+        if (encoding != encodingOf(type)) {
+            throw new IllegalArgumentException("Invalid encoding " + encoding + " for type " + type);
+        }
+        int size = in.getInt(start + 4);
+        int blockSize = in.getInt(start + 8);
+        if (size < 0 || blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid size " + size + " or block size " + blockSize);
+        }
+        int nBlocks = nBlocks(size, blockSize);
+        int tableStart = start + HEADER_SIZE;
+        long dataStart = tableStart + 4L * (nBlocks + 1);
+        if (dataStart > in.limit()) {
+            throw new IllegalArgumentException("Incomplete block table");
+        }
+        int[] offsets = new int[nBlocks + 1];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = (int) dataStart + in.getInt(tableStart + 4 * i);
+        }
+        if (offsets[nBlocks] > in.limit()) {
+            throw new IllegalArgumentException("Incomplete data: expected " + (offsets[nBlocks] - start) + " bytes, found " + (in.limit() - start));
+        }
+        src.position(offsets[nBlocks]);
+
+        CompressedList.Blocks blocks = new CompressedList.Blocks(in, offsets, size, blockSize, encoding);
+        switch (type) {
+            case BinaryCodec.TYPE_INT:
+                return new CompressedList.Int(blocks);
+            case BinaryCodec.TYPE_LONG:
+                return new CompressedList.Long(blocks);
+            case BinaryCodec.TYPE_FLOAT:
+                return new CompressedList.Float(blocks);
+            default:
+                return new CompressedList.Double(blocks);
+        }
+    }
+
+    private static int nBlocks(int size, int blockSize) {
+        return (int) ((size + (long) blockSize - 1) / blockSize);
+    }
+
+    private static byte encodingOf(byte type) {
+        switch (type) {
+            case BinaryCodec.TYPE_INT:
+            case BinaryCodec.TYPE_LONG:
+                return ENCODING_DELTA_VARINT;
+            case BinaryCodec.TYPE_FLOAT:
+            case BinaryCodec.TYPE_DOUBLE:
+                return ENCODING_XOR;
+            default:
+                throw new IllegalArgumentException("Compression supports only ListInt, ListLong, ListFloat and ListDouble");
+        }
+    }
+
+    private static Object newArray(byte type, int length) {
+        switch (type) {
+            case BinaryCodec.TYPE_INT:
+                return new int[length];
+            case BinaryCodec.TYPE_LONG:
+                return null;
+            case BinaryCodec.TYPE_FLOAT:
+                return new float[length];
+            default:
+                return new double[length];
+        }
+    }
+
+    /**
+     * Reads the values as longs: integers are sign extended, floats
+     * and doubles are converted to their bits, with the bits of floats in
+     * the high half so that the low half has only zeros.
+     */
+    private static void readRaw(ListNumber data, byte type, int from, int length, Object block, long[] raw) {
+        switch (type) {
+            case BinaryCodec.TYPE_INT: {
+                int[] values = (int[]) block;
+                ((ListInt) data).getInts(from, values, 0, length);
+                for (int i = 0; i < length; i++) {
+                    raw[i] = values[i];
+                }
+                break;
+            }
+            case BinaryCodec.TYPE_LONG:
+                ((ListLong) data).getLongs(from, raw, 0, length);
+                break;
+            case BinaryCodec.TYPE_FLOAT: {
+                float[] values = (float[]) block;
+                ((ListFloat) data).getFloats(from, values, 0, length);
+                for (int i = 0; i < length; i++) {
+                    raw[i] = (long) Float.floatToRawIntBits(values[i]) << 32;
+                }
+                break;
+            }
+            default: {
+                double[] values = (double[]) block;
+                ((ListDouble) data).getDoubles(from, values, 0, length);
+                for (int i = 0; i < length; i++) {
+                    raw[i] = Double.doubleToRawLongBits(values[i]);
+                }
+                break;
+            }
+        }
+    }
+
+    static void encodeDeltaVarint(long[] values, int length, ByteBuffer out) {
+        long previous = 0;
+        for (int i = 0; i < length; i++) {
+            long delta = values[i] - previous;
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.put((byte) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.put((byte) zigzag);
+            previous = values[i];
+        }
+    }
+
+    static void decodeDeltaVarint(ByteBuffer in, int position, long[] values, int length) {
+        long previous = 0;
+        for (int i = 0; i < length; i++) {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in.get(position++);
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            long delta = (zigzag >>> 1) ^ -(zigzag & 1);
+            previous += delta;
+            values[i] = previous;
+        }
+    }
+
+    static void encodeXor(long[] values, int length, ByteBuffer out) {
+        BitWriter writer = new BitWriter(out);
+        long previous = 0;
+        // No window of meaningful bits yet
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 0; i < length; i++) {
+            long xor = values[i] ^ previous;
+            if (xor == 0) {
+                writer.write(0, 1);
+            } else {
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                    // Meaningful bits fit in the previous window
+                    writer.write(2, 2);
+                    writer.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                } else {
+                    int significant = 64 - leading - trailing;
+                    writer.write(3, 2);
+                    writer.write(leading, 5);
+                    writer.write(significant - 1, 6);
+                    writer.write(xor >>> trailing, significant);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previous = values[i];
+        }
+        writer.flush();
+    }
+
+    static void decodeXor(ByteBuffer in, int position, long[] values, int length) {
+        BitReader reader = new BitReader(in, position);
+        long previous = 0;
+        int previousLeading = 0;
+        int previousTrailing = 0;
+        for (int i = 0; i < length; i++) {
+            if (reader.read(1) != 0) {
+                long xor;
+                if (reader.read(1) == 0) {
+                    xor = reader.read(64 - previousLeading - previousTrailing) << previousTrailing;
+                } else {
+                    previousLeading = (int) reader.read(5);
+                    int significant = (int) reader.read(6) + 1;
+                    previousTrailing = 64 - previousLeading - significant;
+                    xor = reader.read(significant) << previousTrailing;
+                }
+                previous ^= xor;
+            }
+            values[i] = previous;
+        }
+    }
+
+    private static long mask(int bits) {
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+
+    /**
+     * Writes bits, most significant first, to a buffer.
+     */
+    private static class BitWriter {
+
+        private final ByteBuffer out;
+        private long buffer;
+        private int nBits;
+
+        BitWriter(ByteBuffer out) {
+            this.out = out;
+        }
+
+        void write(long value, int bits) {
+            if (bits > 32) {
+                write(value >>> 32, bits - 32);
+                bits = 32;
+            }
+            buffer = (buffer << bits) | (value & mask(bits));
+            nBits += bits;
+            while (nBits >= 8) {
+                nBits -= 8;
+                out.put((byte) (buffer >>> nBits));
+            }
+        }
+
+        void flush() {
+            if (nBits > 0) {
+                out.put((byte) (buffer << (8 - nBits)));
+                nBits = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads bits, most significant first, from a buffer.
+     */
+    private static class BitReader {
+
+        private final ByteBuffer in;
+        private int position;
+        private long buffer;
+        private int nBits;
+
+        BitReader(ByteBuffer in, int position) {
+            this.in = in;
+            this.position = position;
+        }
+
+        long read(int bits) {
+            if (bits > 32) {
+                long high = read(bits - 32);
+                return (high << 32) | read(32);
+            }
+            while (nBits < bits) {
+                buffer = (buffer << 8) | (in.get(position++) & 0xFF);
+                nBits += 8;
+            }
+            nBits -= bits;
+            return (buffer >>> nBits) & mask(bits);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+
+/**
+ * Binary encodings for numeric collections, to store them or to send
+ * them over the network.
+ */
+package org.epics.util.array.codec;
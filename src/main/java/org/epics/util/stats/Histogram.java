@@ -0,0 +1,462 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayLong;
+import org.epics.util.array.CollectionNumber;
+import org.epics.util.array.CollectionNumbers;
+import org.epics.util.array.ConsumerDouble;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListLong;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.ListNumbers;
+import org.epics.util.array.SharedForkJoinPool;
+
+/**
+ * Counts the values that fall in each bin of a fixed set of bins.
+ * <p>
+ * Bins are defined by n + 1 increasing edges: bin i contains the values
+ * from edge i (inclusive) to edge i + 1 (exclusive), except for the last
+ * bin, which also contains the last edge. Values outside the edges are
+ * counted as underflow or overflow, and NaN values are skipped.
+ * <p>
+ * For linear bins the bin is computed with a multiplication by the
+ * precalculated inverse of the bin width, and corrected against the
+ * edges where rounding puts it off by one; for arbitrary edges it is
+ * found with a binary search. Lists are read in blocks, and large lists
+ * can be split across multiple threads with {@link #parallelAdd(ListNumber) }.
+ * Histograms with the same bins can be merged, and values can be removed,
+ * so that the histogram can follow the content of a circular buffer by
+ * removing the oldest values before they are overwritten.
+ * <p>
+ * The histogram is not thread-safe.
+ *
+ * @author carcassi
+ */
+public class Histogram implements ConsumerDouble {
+
+    private static final int BUFFER_SIZE = 1024;
+    private static final int MIN_LEAF_SIZE = 1 << 14;
+
+    private final double[] edges;
+    private final boolean linear;
+    private final double minimum;
+    private final double maximum;
+    private final double inverseBinWidth;
+    private final ArrayDouble edgeList;
+    private final long[] counts;
+    private long underflow;
+    private long overflow;
+    private double[] buffer;
+
+    private Histogram(double[] edges, boolean linear) {
+        this.edges = edges;
+        this.linear = linear;
+        this.minimum = edges[0];
+        this.maximum = edges[edges.length - 1];
+        this.inverseBinWidth = (edges.length - 1) / (maximum - minimum);
+        this.edgeList = new ArrayDouble(edges, true);
+        this.counts = new long[edges.length - 1];
+    }
+
+    /**
+     * Creates a histogram with the given number of bins of equal width
+     * between minimum and maximum.
+     *
+     * @param minimum the lower edge of the first bin
+     * @param maximum the upper edge of the last bin
+     * @param nBins the number of bins
+     * @return a new empty histogram
+     */
+    public static Histogram linear(double minimum, double maximum, int nBins) {
+        if (nBins <= 0) {
+            throw new IllegalArgumentException("Number of bins must be positive (was " + nBins + ")");
+        }
+        if (!(minimum < maximum) || Double.isInfinite(minimum) || Double.isInfinite(maximum)) {
+            throw new IllegalArgumentException("Invalid range " + minimum + " - " + maximum);
+        }
+        double[] edges = new double[nBins + 1];
+        double width = (maximum - minimum) / nBins;
+        for (int i = 0; i < nBins; i++) {
+            edges[i] = minimum + i * width;
+        }
+        edges[nBins] = maximum;
+        return new Histogram(edges, true);
+    }
+
+    /**
+     * Creates a histogram with the given bin edges.
+     *
+     * @param edges the edges of the bins; at least two, strictly increasing
+     * @return a new empty histogram
+     */
+    public static Histogram withEdges(ListNumber edges) {
+        if (edges.size() < 2) {
+            throw new IllegalArgumentException("At least two edges are needed (were " + edges.size() + ")");
+        }
+        double[] array = CollectionNumbers.doubleArrayCopyOf(edges);
+        for (int i = 1; i < array.length; i++) {
+            if (!(array[i - 1] < array[i])) {
+                throw new IllegalArgumentException("Edges must be strictly increasing (" + array[i - 1] + " followed by " + array[i] + ")");
+            }
+        }
+        return new Histogram(array, false);
+    }
+
+    /**
+     * Creates a histogram with bins adapted to the given data, so that each
+     * bin holds about the same number of values. The edges are the
+     * quantiles of the data (see {@link StatisticsUtil#quantilesOf(ListNumber, double...) });
+     * where many values are equal, bins are merged and there may be fewer
+     * than requested. The data is not added to the histogram.
+     *
+     * @param data the data used to choose the bins
+     * @param nBins the number of bins requested
+     * @return a new empty histogram
+     */
+    public static Histogram adaptive(ListNumber data, int nBins) {
+        if (nBins <= 0) {
+            throw new IllegalArgumentException("Number of bins must be positive (was " + nBins + ")");
+        }
+        double[] p = new double[nBins + 1];
+        for (int i = 0; i <= nBins; i++) {
+            p[i] = (double) i / nBins;
+        }
+        double[] quantiles = CollectionNumbers.doubleArrayCopyOf(StatisticsUtil.quantilesOf(data, p));
+        if (Double.isNaN(quantiles[0])) {
+            throw new IllegalArgumentException("No values to create the bins from");
+        }
+        if (quantiles[0] == quantiles[nBins]) {
+            // All values are the same: one bin around them
+            return linear(quantiles[0] - 0.5, quantiles[0] + 0.5, 1);
+        }
+        int size = 1;
+        for (int i = 1; i <= nBins; i++) {
+            if (quantiles[i] > quantiles[size - 1]) {
+                quantiles[size++] = quantiles[i];
+            }
+        }
+        return new Histogram(Arrays.copyOf(quantiles, size), false);
+    }
+
+    /**
+     * Creates an empty histogram with the same bins as this one.
+     *
+     * @return a new empty histogram
+     */
+    public Histogram emptyCopy() {
+        return new Histogram(edges, linear);
+    }
+
+    /**
+     * The bin that contains the value.
+     *
+     * @param value a value
+     * @return the index of the bin; -1 for underflow, or the number of
+     *         bins for overflow or NaN
+     */
+    public int binOf(double value) {
+        if (value >= minimum && value <= maximum) {
+            if (linear) {
+                return linearBin(value);
+            }
+            int bin = ListNumbers.binarySearchValueOrLower(edgeList, value);
+            // The maximum belongs to the last bin
+            return bin < counts.length ? bin : counts.length - 1;
+        }
+        return value < minimum ? -1 : counts.length;
+    }
+
+    // The bin of a value between the minimum and the maximum. The bin
+    // from the width can differ from the edges, which were also rounded,
+    // for values on or next to an edge.
+    private int linearBin(double value) {
+        int lastBin = counts.length - 1;
+        int bin = (int) ((value - minimum) * inverseBinWidth);
+        if (bin > lastBin) {
+            bin = lastBin;
+        }
+        while (value < edges[bin]) {
+            bin--;
+        }
+        while (bin < lastBin && value >= edges[bin + 1]) {
+            bin++;
+        }
+        return bin;
+    }
+
+    /**
+     * Adds a value. NaN values are skipped.
+     *
+     * @param value the new value
+     */
+    public void add(double value) {
+        update(value, 1);
+    }
+
+    /**
+     * Adds a value. Same as {@link #add(double)}, so that the
+     * histogram can be passed to {@link CollectionNumber#forEachDouble(ConsumerDouble) }.
+     *
+     * @param value the new value
+     */
+    @Override
+    public void accept(double value) {
+        add(value);
+    }
+
+    /**
+     * Removes a value that was previously added.
+     *
+     * @param value the value to remove
+     */
+    public void remove(double value) {
+        update(value, -1);
+    }
+
+    private void update(double value, int increment) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        int bin = binOf(value);
+        if (bin < 0) {
+            underflow += increment;
+        } else if (bin == counts.length) {
+            overflow += increment;
+        } else {
+            counts[bin] += increment;
+        }
+    }
+
+    /**
+     * Adds all the values of the collection. NaN values are skipped.
+     *
+     * @param data the new values
+     */
+    public void add(CollectionNumber data) {
+        if (data instanceof ListNumber) {
+            ListNumber list = (ListNumber) data;
+            add(list, 0, list.size());
+        } else {
+            data.forEachDouble(this);
+        }
+    }
+
+    /**
+     * Adds the values of the list in the given range. NaN values are skipped.
+     *
+     * @param data the list
+     * @param fromIndex the first element to add (inclusive)
+     * @param toIndex the last element to add (exclusive)
+     */
+    public void add(ListNumber data, int fromIndex, int toIndex) {
+        update(data, fromIndex, toIndex, 1);
+    }
+
+    /**
+     * Removes the values of the list in the given range, which were
+     * previously added.
+     *
+     * @param data the list
+     * @param fromIndex the first element to remove (inclusive)
+     * @param toIndex the last element to remove (exclusive)
+     */
+    public void remove(ListNumber data, int fromIndex, int toIndex) {
+        update(data, fromIndex, toIndex, -1);
+    }
+
+    private void update(ListNumber data, int fromIndex, int toIndex, int increment) {
+        if (buffer == null) {
+            buffer = new double[BUFFER_SIZE];
+        }
+        for (int offset = fromIndex; offset < toIndex; offset += buffer.length) {
+            int length = Math.min(buffer.length, toIndex - offset);
+            data.getDoubles(offset, buffer, 0, length);
+            if (linear) {
+                updateLinear(buffer, length, increment);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    update(buffer[i], increment);
+                }
+            }
+        }
+    }
+
+    private void updateLinear(double[] values, int length, int increment) {
+        for (int i = 0; i < length; i++) {
+            double value = values[i];
+            if (value >= minimum && value <= maximum) {
+                counts[linearBin(value)] += increment;
+            } else if (value < minimum) {
+                underflow += increment;
+            } else if (value > maximum) {
+                overflow += increment;
+            }
+        }
+    }
+
+    /**
+     * Adds all the values of the list, using multiple threads if the
+     * list is larger than {@link StatisticsUtil#DEFAULT_PARALLEL_THRESHOLD}.
+     *
+     * @param data the new values
+     */
+    public void parallelAdd(ListNumber data) {
+        parallelAdd(data, StatisticsUtil.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Adds all the values of the list, using multiple threads if the
+     * list is larger than the given threshold. The list is split by
+     * index range, each range is counted in the fork-join pool on an
+     * empty copy of the histogram, and the results are merged.
+     *
+     * @param data the new values
+     * @param threshold the minimum size for which the calculation is split
+     */
+    public void parallelAdd(ListNumber data, int threshold) {
+        if (data.size() < threshold) {
+            add(data);
+            return;
+        }
+        int parallelism = SharedForkJoinPool.getParallelism();
+        int leafSize = Math.max(MIN_LEAF_SIZE, data.size() / (parallelism * 4));
+        merge(SharedForkJoinPool.invoke(new HistogramTask(this, data, 0, data.size(), leafSize)));
+    }
+
+    private static class HistogramTask extends RecursiveTask<Histogram> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Histogram bins;
+        private final ListNumber data;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        HistogramTask(Histogram bins, ListNumber data, int from, int to, int leafSize) {
+            this.bins = bins;
+            this.data = data;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Histogram compute() {
+            if (to - from <= leafSize) {
+                Histogram histogram = bins.emptyCopy();
+                histogram.add(data, from, to);
+                return histogram;
+            }
+
+            int middle = (from + to) >>> 1;
+            HistogramTask left = new HistogramTask(bins, data, from, middle, leafSize);
+            HistogramTask right = new HistogramTask(bins, data, middle, to, leafSize);
+            left.fork();
+            Histogram result = right.compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+
+    /**
+     * Adds the counts of another histogram with the same bins.
+     *
+     * @param other another histogram; not modified
+     */
+    public void merge(Histogram other) {
+        if (other.edges != edges && !Arrays.equals(other.edges, edges)) {
+            throw new IllegalArgumentException("Histograms have different bins");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        underflow += other.underflow;
+        overflow += other.overflow;
+    }
+
+    /**
+     * Removes all the values.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        underflow = 0;
+        overflow = 0;
+    }
+
+    /**
+     * The number of bins.
+     *
+     * @return the number of bins
+     */
+    public int getNBins() {
+        return counts.length;
+    }
+
+    /**
+     * The edges of the bins.
+     *
+     * @return a read-only list with the number of bins plus one elements
+     */
+    public ListDouble getBinEdges() {
+        return edgeList;
+    }
+
+    /**
+     * The number of values in the given bin.
+     *
+     * @param bin the index of the bin
+     * @return the number of values
+     */
+    public long getCount(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * The number of values in each bin. The list is a copy, which is not
+     * affected by later changes.
+     *
+     * @return the counts
+     */
+    public ListLong getCounts() {
+        return new ArrayLong(counts.clone(), true);
+    }
+
+    /**
+     * The number of values below the first edge.
+     *
+     * @return the number of values
+     */
+    public long getUnderflow() {
+        return underflow;
+    }
+
+    /**
+     * The number of values above the last edge.
+     *
+     * @return the number of values
+     */
+    public long getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * The number of values (excluding NaN) added, including underflow
+     * and overflow.
+     *
+     * @return the number of values
+     */
+    public long getTotalCount() {
+        long total = underflow + overflow;
+        for (int i = 0; i < counts.length; i++) {
+            total += counts[i];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats;
+
+/**
+ * Statistics that can be overwritten, so that the same instance can be
+ * reused to hold the result of repeated calculations.
+ * <p>
+ * An instance with a count of zero represents the statistics of no values:
+ * the minimum, maximum, average and standard deviation are NaN.
+ * The minimum and maximum are boxed only if requested
+ * through {@link #getMinimum() } and {@link #getMaximum() }.
+ * <p>
+ * The object is not thread-safe.
+ *
+ * @author carcassi
+ */
+public class MutableStatistics implements Statistics, RangeDouble {
+    
+    private int count;
+    private double minimum = Double.NaN;
+    private double maximum = Double.NaN;
+    private double average = Double.NaN;
+    private double stdDev = Double.NaN;
+
+    /**
+     * Changes all the values.
+     * 
+     * @param count the number of values
+     * @param minimum the minimum value
+     * @param maximum the maximum value
+     * @param average the average value
+     * @param stdDev the standard deviation
+     */
+    public void set(int count, double minimum, double maximum, double average, double stdDev) {
+        this.count = count;
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.average = average;
+        this.stdDev = stdDev;
+    }
+    
+    /**
+     * Changes the values to the ones of the given statistics.
+     * 
+     * @param stats the statistics to copy; null for no values
+     */
+    public void set(Statistics stats) {
+        if (stats == null) {
+            clear();
+        } else {
+            set(stats.getCount(), Ranges.minimum(stats), Ranges.maximum(stats), stats.getAverage(), stats.getStdDev());
+        }
+    }
+    
+    /**
+     * Changes the values to the statistics of no values.
+     */
+    public void clear() {
+        set(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public double getMinimumDouble() {
+        return minimum;
+    }
+
+    @Override
+    public double getMaximumDouble() {
+        return maximum;
+    }
+
+    @Override
+    public Number getMinimum() {
+        return minimum;
+    }
+
+    @Override
+    public Number getMaximum() {
+        return maximum;
+    }
+
+    @Override
+    public double getAverage() {
+        return average;
+    }
+
+    @Override
+    public double getStdDev() {
+        return stdDev;
+    }
+    
+}
@@ -0,0 +1,378 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats;
+
+import java.util.Arrays;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.CollectionNumber;
+import org.epics.util.array.ConsumerDouble;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListNumber;
+
+/**
+ * Approximates the quantiles of a stream of values, excluding NaN values,
+ * using bounded memory.
+ * <p>
+ * This is a KLL sketch: the values are kept in a stack of compactors,
+ * where each value at level h stands for 2<sup>h</sup> original values.
+ * When a level is full it is sorted, and every other value is promoted
+ * to the next level. The capacity of the levels decreases geometrically
+ * going down, so the memory is O(k) plus a logarithmic term,
+ * and the error on the rank of a quantile is about 1.7% for
+ * the default k of 200, decreasing roughly as 1/k. The minimum and
+ * the maximum are exact.
+ * <p>
+ * Sketches of different parts of the data (e.g. different channels, time
+ * periods or threads) can be merged, and the result has the same accuracy
+ * as a sketch that saw all the data.
+ * <p>
+ * The sketch is not thread-safe.
+ *
+ * @author carcassi
+ */
+public class QuantileSketch implements ConsumerDouble {
+
+    /**
+     * The default accuracy parameter.
+     */
+    public static final int DEFAULT_K = 200;
+
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+    private static final int BUFFER_SIZE = 1024;
+
+    private final int k;
+    // The values at each level, and how many are used
+    private double[][] levels = new double[0][];
+    private int[] levelSizes = new int[0];
+    private int levelCount;
+    // Values currently retained, and the threshold that triggers a compaction
+    private int retained;
+    private int maxRetained;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long randomState = 0x2545F4914F6CDD1DL;
+    private double[] buffer;
+
+    // All the retained values sorted, with the cumulative weight;
+    // computed when queried, discarded on update
+    private double[] sortedValues;
+    private long[] cumulativeWeights;
+
+    /**
+     * Creates a new sketch with the default accuracy.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Creates a new sketch with the given accuracy parameter: the
+     * size of the top level. The memory used, and the
+     * accuracy, grow linearly with k.
+     *
+     * @param k the accuracy parameter; must be at least 8
+     */
+    public QuantileSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("k must be at least 8 (was " + k + ")");
+        }
+        this.k = k;
+        addLevel();
+    }
+
+    /**
+     * Adds a value. NaN values are skipped.
+     *
+     * @param value the new value
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value > max)
+            max = value;
+        if (value < min)
+            min = value;
+        count++;
+        append(0, value);
+        retained++;
+        sortedValues = null;
+        if (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    /**
+     * Adds a value. Same as {@link #add(double)}, so that the
+     * sketch can be passed to {@link CollectionNumber#forEachDouble(ConsumerDouble) }.
+     *
+     * @param value the new value
+     */
+    @Override
+    public void accept(double value) {
+        add(value);
+    }
+
+    /**
+     * Adds all the values of the collection. NaN values are skipped.
+     * Lists are read in blocks.
+     *
+     * @param data the new values
+     */
+    public void add(CollectionNumber data) {
+        if (data instanceof ListNumber) {
+            ListNumber list = (ListNumber) data;
+            if (buffer == null) {
+                buffer = new double[BUFFER_SIZE];
+            }
+            for (int offset = 0; offset < list.size(); offset += buffer.length) {
+                int length = Math.min(buffer.length, list.size() - offset);
+                list.getDoubles(offset, buffer, 0, length);
+                for (int i = 0; i < length; i++) {
+                    add(buffer[i]);
+                }
+            }
+        } else {
+            data.forEachDouble(this);
+        }
+    }
+
+    /**
+     * Adds the values summarized by another sketch.
+     *
+     * @param other another sketch; not modified
+     */
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        while (levelCount < other.levelCount) {
+            addLevel();
+        }
+        // The sizes are read before appending, as other may be this sketch
+        int otherLevelCount = other.levelCount;
+        for (int h = 0; h < otherLevelCount; h++) {
+            int otherLevelSize = other.levelSizes[h];
+            for (int i = 0; i < otherLevelSize; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        retained += other.retained;
+        count += other.count;
+        if (other.max > max)
+            max = other.max;
+        if (other.min < min)
+            min = other.min;
+        sortedValues = null;
+        while (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    /**
+     * Removes all the values.
+     */
+    public void clear() {
+        levels = new double[0][];
+        levelSizes = new int[0];
+        levelCount = 0;
+        retained = 0;
+        count = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        sortedValues = null;
+        addLevel();
+    }
+
+    /**
+     * The number of values (excluding NaN) added.
+     *
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The approximate quantile: the smallest retained value with
+     * at least a fraction p of the values less or equal to it.
+     *
+     * @param p the probability, from 0 to 1
+     * @return the quantile; NaN if no value was added
+     */
+    public double getQuantile(double p) {
+        if (!(p >= 0 && p <= 1)) {
+            throw new IllegalArgumentException("Probability must be between 0 and 1 (was " + p + ")");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (p == 0) {
+            return min;
+        }
+        if (p == 1) {
+            return max;
+        }
+        prepareSortedValues();
+        double target = p * count;
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return sortedValues[low];
+    }
+
+    /**
+     * The approximate median.
+     *
+     * @return the median; NaN if no value was added
+     */
+    public double getMedian() {
+        return getQuantile(0.5);
+    }
+
+    /**
+     * The approximate quantiles for the given probabilities.
+     *
+     * @param p the probabilities, from 0 to 1
+     * @return the quantiles, in the same order as the probabilities
+     */
+    public ListDouble getQuantiles(double... p) {
+        double[] result = new double[p.length];
+        for (int i = 0; i < p.length; i++) {
+            result[i] = getQuantile(p[i]);
+        }
+        return new ArrayDouble(result);
+    }
+
+    /**
+     * The approximate fraction of the values that are less or equal
+     * to the given value.
+     *
+     * @param value a value
+     * @return the normalized rank, from 0 to 1; NaN if no value was added
+     */
+    public double getRank(double value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        prepareSortedValues();
+        int index = Arrays.binarySearch(sortedValues, value);
+        if (index >= 0) {
+            // Move to the last of equal values
+            while (index + 1 < sortedValues.length && sortedValues[index + 1] == value) {
+                index++;
+            }
+        } else {
+            index = -index - 2;
+        }
+        if (index < 0) {
+            return 0.0;
+        }
+        return (double) cumulativeWeights[index] / count;
+    }
+
+    private int capacity(int level) {
+        int depth = levelCount - level - 1;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, depth)));
+    }
+
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, levelCount + 1);
+        levelSizes = Arrays.copyOf(levelSizes, levelCount + 1);
+        levelCount++;
+        maxRetained = 0;
+        for (int h = 0; h < levelCount; h++) {
+            maxRetained += capacity(h);
+        }
+        levels[levelCount - 1] = new double[capacity(levelCount - 1)];
+    }
+
+    private void append(int level, double value) {
+        if (levelSizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], Math.max(2, 2 * levels[level].length));
+        }
+        levels[level][levelSizes[level]++] = value;
+    }
+
+    // Compacts the lowest level that is full
+    private void compress() {
+        for (int h = 0; h < levelCount; h++) {
+            if (levelSizes[h] >= capacity(h)) {
+                if (h + 1 == levelCount) {
+                    addLevel();
+                }
+                compact(h);
+                return;
+            }
+        }
+    }
+
+    private void compact(int level) {
+        double[] values = levels[level];
+        int size = levelSizes[level];
+        Arrays.sort(values, 0, size);
+        // With an odd size, the smallest value stays at this level;
+        // from each of the other pairs one value, chosen at random,
+        // is promoted with double the weight
+        int start = size % 2;
+        int offset = nextRandomBit();
+        for (int i = start; i < size; i += 2) {
+            append(level + 1, values[i + offset]);
+        }
+        levelSizes[level] = start;
+        retained -= (size - start) / 2;
+    }
+
+    private int nextRandomBit() {
+        randomState ^= randomState << 13;
+        randomState ^= randomState >>> 7;
+        randomState ^= randomState << 17;
+        return (int) (randomState >>> 63);
+    }
+
+    private void prepareSortedValues() {
+        if (sortedValues != null) {
+            return;
+        }
+        // Each level is sorted, then the levels are merged
+        double[] values = new double[0];
+        long[] weights = new long[0];
+        int size = 0;
+        for (int h = 0; h < levelCount; h++) {
+            Arrays.sort(levels[h], 0, levelSizes[h]);
+            double[] merged = new double[size + levelSizes[h]];
+            long[] mergedWeights = new long[merged.length];
+            int i = 0;
+            int j = 0;
+            for (int n = 0; n < merged.length; n++) {
+                if (j == levelSizes[h] || (i < size && values[i] <= levels[h][j])) {
+                    merged[n] = values[i];
+                    mergedWeights[n] = weights[i];
+                    i++;
+                } else {
+                    merged[n] = levels[h][j];
+                    mergedWeights[n] = 1L << h;
+                    j++;
+                }
+            }
+            values = merged;
+            weights = mergedWeights;
+            size = merged.length;
+        }
+        for (int n = 1; n < size; n++) {
+            weights[n] += weights[n - 1];
+        }
+        sortedValues = values;
+        cumulativeWeights = weights;
+    }
+}
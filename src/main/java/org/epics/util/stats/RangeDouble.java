@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats;
+
+/**
+ * A range that can return its boundaries as primitive doubles, without
+ * boxing them into Numbers.
+ * <p>
+ * The utilities in {@link Ranges} check for this interface, so that ranges
+ * and statistics created by this package are never boxed and unboxed.
+ * Use {@link Ranges#minimum(Range) } and {@link Ranges#maximum(Range) } to
+ * do the same for a generic range.
+ *
+ * @author carcassi
+ */
+public interface RangeDouble extends Range {
+    
+    /**
+     * The minimum value, as a double.
+     * 
+     * @return the minimum value
+     */
+    public double getMinimumDouble();
+    
+    /**
+     * The maximum value, as a double.
+     * 
+     * @return the maximum value
+     */
+    public double getMaximumDouble();
+}
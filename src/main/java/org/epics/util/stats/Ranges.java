@@ -20,15 +20,43 @@ public class Ranges {
      * @return the range of the absolute values
      */
     public static Range absRange(Range range) {
-        if (range.getMinimum().doubleValue() >= 0 && range.getMaximum().doubleValue() >= 0) {
+        if (minimum(range) >= 0 && maximum(range) >= 0) {
             return range;
-        } else if (range.getMinimum().doubleValue() < 0 && range.getMaximum().doubleValue() < 0) {
-            return range(- range.getMaximum().doubleValue(), - range.getMinimum().doubleValue());
+        } else if (minimum(range) < 0 && maximum(range) < 0) {
+            return range(- maximum(range), - minimum(range));
         } else {
-            return range(0, Math.max(range.getMinimum().doubleValue(), range.getMaximum().doubleValue()));
+            return range(0, Math.max(minimum(range), maximum(range)));
         }
     }
     
+    /**
+     * The minimum of the range as a double. If the range is
+     * a {@link RangeDouble}, the value is not boxed.
+     * 
+     * @param range a range
+     * @return the minimum value
+     */
+    public static double minimum(Range range) {
+        if (range instanceof RangeDouble) {
+            return ((RangeDouble) range).getMinimumDouble();
+        }
+        return range.getMinimum().doubleValue();
+    }
+    
+    /**
+     * The maximum of the range as a double. If the range is
+     * a {@link RangeDouble}, the value is not boxed.
+     * 
+     * @param range a range
+     * @return the maximum value
+     */
+    public static double maximum(Range range) {
+        if (range instanceof RangeDouble) {
+            return ((RangeDouble) range).getMaximumDouble();
+        }
+        return range.getMaximum().doubleValue();
+    }
+    
     /**
      * Range from given min and max.
      * 
@@ -40,7 +68,7 @@ public class Ranges {
         if (minValue > maxValue) {
             throw new IllegalArgumentException("minValue should be less then or equal to maxValue (" + minValue+ ", " + maxValue + ")");
         }
-        return new Range() {
+        return new RangeDouble() {
 
             @Override
             public Number getMinimum() {
@@ -52,6 +80,16 @@ public class Ranges {
                 return maxValue;
             }
 
+            @Override
+            public double getMinimumDouble() {
+                return minValue;
+            }
+
+            @Override
+            public double getMaximumDouble() {
+                return maxValue;
+            }
+
             @Override
             public String toString() {
                 return Ranges.toString(this);
@@ -68,8 +106,8 @@ public class Ranges {
      * @return true if subrange is contained in range
      */
     public static boolean contains(Range range, Range subrange) {
-        return range.getMinimum().doubleValue() <= subrange.getMinimum().doubleValue()
-                && range.getMaximum().doubleValue() >= subrange.getMaximum().doubleValue();
+        return minimum(range) <= minimum(subrange)
+                && maximum(range) >= maximum(subrange);
         
     }
 
@@ -82,15 +120,15 @@ public class Ranges {
      * @return the bigger range
      */
     public static Range sum(Range range1, Range range2) {
-        if (range1.getMinimum().doubleValue() <= range2.getMinimum().doubleValue()) {
-            if (range1.getMaximum().doubleValue() >= range2.getMaximum().doubleValue()) {
+        if (minimum(range1) <= minimum(range2)) {
+            if (maximum(range1) >= maximum(range2)) {
                 return range1;
             } else {
-                return range(range1.getMinimum().doubleValue(), range2.getMaximum().doubleValue());
+                return range(minimum(range1), maximum(range2));
             }
         } else {
-            if (range1.getMaximum().doubleValue() >= range2.getMaximum().doubleValue()) {
-                return range(range2.getMinimum().doubleValue(), range1.getMaximum().doubleValue());
+            if (maximum(range1) >= maximum(range2)) {
+                return range(minimum(range2), maximum(range1));
             } else {
                 return range2;
             }
@@ -118,7 +156,7 @@ public class Ranges {
      * @return the value transformed based on the range
      */
     public static double normalize(Range range, double value) {
-        return normalize(value, range.getMinimum().doubleValue(), range.getMaximum().doubleValue());
+        return normalize(value, minimum(range), maximum(range));
     }
     
     private static double normalize(double value, double min, double max) {
@@ -133,7 +171,7 @@ public class Ranges {
      * @return true if the value is within the range
      */
     public static boolean contains(Range range, double value) {
-        return value >= range.getMinimum().doubleValue() && value <= range.getMaximum().doubleValue();
+        return value >= minimum(range) && value <= maximum(range);
     }
     
     /**
@@ -164,10 +202,10 @@ public class Ranges {
      * @return from 0 (if there is no intersection) to 1 (if the ranges are the same)
      */
     public static double overlap(Range range, Range otherRange) {
-        double minOverlap = Math.max(range.getMinimum().doubleValue(), otherRange.getMinimum().doubleValue());
-        double maxOverlap = Math.min(range.getMaximum().doubleValue(), otherRange.getMaximum().doubleValue());
+        double minOverlap = Math.max(minimum(range), minimum(otherRange));
+        double maxOverlap = Math.min(maximum(range), maximum(otherRange));
         double overlapWidth = maxOverlap - minOverlap;
-        double rangeWidth = range.getMaximum().doubleValue() - range.getMinimum().doubleValue();
+        double rangeWidth = maximum(range) - minimum(range);
         double fraction = Math.max(0.0, overlapWidth / rangeWidth);
         return fraction;
     }
@@ -184,8 +222,8 @@ public class Ranges {
             return false;
         }
         
-        double min = range.getMinimum().doubleValue();
-        double max = range.getMaximum().doubleValue();
+        double min = minimum(range);
+        double max = maximum(range);
         
         return min != max && !Double.isNaN(min) && !Double.isInfinite(min) &&
                 !Double.isNaN(max) && !Double.isInfinite(max);
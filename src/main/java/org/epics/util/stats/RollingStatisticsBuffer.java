@@ -0,0 +1,259 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats;
+
+import org.epics.util.array.CircularBufferDouble;
+import org.epics.util.array.ListNumber;
+
+/**
+ * A circular buffer that keeps the statistics of the values it currently
+ * holds up to date as values are added and dropped.
+ * <p>
+ * Count, average and standard deviation are updated in constant time per
+ * value (Welford's algorithm, applied in reverse when the oldest value
+ * is dropped). Minimum and maximum are tracked with monotonic queues,
+ * which take amortized constant time per value. To avoid the accumulation
+ * of rounding errors, the average and standard deviation are recalculated
+ * from the content of the buffer every time the buffer has been entirely
+ * replaced, which is still amortized constant time.
+ * <p>
+ * NaN values are kept in the buffer but are excluded from the statistics.
+ *
+ * @author carcassi
+ */
+public class RollingStatisticsBuffer extends CircularBufferDouble {
+
+    private final MonotonicQueue minQueue = new MonotonicQueue(false);
+    private final MonotonicQueue maxQueue = new MonotonicQueue(true);
+    private int count;
+    private double mean;
+    private double m2;
+    private long nextSequence;
+    private int removedSinceRecalculation;
+
+    /**
+     * Creates a new buffer with the given maximum capacity.
+     *
+     * @param maxCapacity maximum capacity
+     */
+    public RollingStatisticsBuffer(int maxCapacity) {
+        super(maxCapacity);
+    }
+
+    /**
+     * Creates a new buffer with the given initial and maximum
+     * capacity.
+     *
+     * @param initialCapacity initial capacity
+     * @param maxCapacity  maximum capacity
+     */
+    public RollingStatisticsBuffer(int initialCapacity, int maxCapacity) {
+        super(initialCapacity, maxCapacity);
+    }
+
+    @Override
+    public void addDouble(double value) {
+        int oldSize = size();
+        double oldest = oldSize != 0 ? getDouble(0) : Double.NaN;
+        super.addDouble(value);
+        if (size() == oldSize) {
+            remove(oldest, nextSequence - oldSize);
+        }
+        insert(value, nextSequence);
+        nextSequence++;
+    }
+
+    @Override
+    public void addAll(double[] src, int srcIndex, int length) {
+        if (srcIndex < 0 || length < 0 || srcIndex + length > src.length) {
+            throw new IndexOutOfBoundsException("Range: " + srcIndex + " - " + (srcIndex + length) + ", Size: " + src.length);
+        }
+        // The statistics need to see each value that is dropped
+        for (int i = 0; i < length; i++) {
+            addDouble(src[srcIndex + i]);
+        }
+    }
+
+    @Override
+    public void addAll(ListNumber src) {
+        for (int i = 0; i < src.size(); i++) {
+            addDouble(src.getDouble(i));
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        minQueue.clear();
+        maxQueue.clear();
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        removedSinceRecalculation = 0;
+    }
+
+    private void insert(double value, long sequence) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        minQueue.add(value, sequence);
+        maxQueue.add(value, sequence);
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    private void remove(double value, long sequence) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        minQueue.remove(sequence);
+        maxQueue.remove(sequence);
+        count--;
+        removedSinceRecalculation++;
+        if (removedSinceRecalculation >= size()) {
+            // The values removed by the circular buffer are not available
+            // anymore, so the recalculation must happen after removal
+            // and before insertion
+            recalculate();
+        } else if (count == 0) {
+            mean = 0;
+            m2 = 0;
+        } else {
+            double delta = value - mean;
+            mean -= delta / count;
+            m2 -= delta * (value - mean);
+        }
+    }
+
+    private void recalculate() {
+        removedSinceRecalculation = 0;
+        // The newest value is not yet included in the statistics
+        int size = size() - 1;
+        int newCount = 0;
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            double value = getDouble(i);
+            if (!Double.isNaN(value)) {
+                total += value;
+                newCount++;
+            }
+        }
+        count = newCount;
+        mean = count == 0 ? 0 : total / count;
+        m2 = 0;
+        for (int i = 0; i < size; i++) {
+            double value = getDouble(i);
+            if (!Double.isNaN(value)) {
+                double delta = value - mean;
+                m2 += delta * delta;
+            }
+        }
+    }
+
+    /**
+     * The statistics of the values currently in the buffer.
+     *
+     * @return the statistics; null if the buffer has no value other than NaN
+     */
+    public Statistics getStatistics() {
+        if (count == 0) {
+            return null;
+        }
+        return new StatisticsUtil.StatisticsImpl(count, minQueue.first(), maxQueue.first(),
+                mean, Math.sqrt(Math.max(0.0, m2) / count));
+    }
+
+    /**
+     * Stores the statistics of the values (excluding NaN) currently in
+     * the buffer in the given holder, without allocating.
+     *
+     * @param result the holder for the result; count is zero if there are no values
+     * @return the given holder
+     */
+    public MutableStatistics getStatistics(MutableStatistics result) {
+        if (count == 0) {
+            result.clear();
+        } else {
+            result.set(count, minQueue.first(), maxQueue.first(),
+                    mean, Math.sqrt(Math.max(0.0, m2) / count));
+        }
+        return result;
+    }
+
+    /**
+     * A double ended queue of values that is kept monotonic: the first
+     * value is always the minimum (or the maximum) of the values added
+     * and not yet removed.
+     */
+    private static class MonotonicQueue {
+
+        private final boolean max;
+        private double[] values = new double[16];
+        private long[] sequences = new long[16];
+        private int head;
+        private int size;
+
+        public MonotonicQueue(boolean max) {
+            this.max = max;
+        }
+
+        public void add(double value, long sequence) {
+            // Drop the values that can't be the extreme anymore
+            while (size != 0) {
+                double last = values[index(size - 1)];
+                if (max ? last <= value : last >= value) {
+                    size--;
+                } else {
+                    break;
+                }
+            }
+            if (size == values.length) {
+                grow();
+            }
+            int tail = index(size);
+            values[tail] = value;
+            sequences[tail] = sequence;
+            size++;
+        }
+
+        public void remove(long sequence) {
+            if (size != 0 && sequences[head] == sequence) {
+                head = index(1);
+                size--;
+            }
+        }
+
+        public double first() {
+            return values[head];
+        }
+
+        public void clear() {
+            head = 0;
+            size = 0;
+        }
+
+        private int index(int position) {
+            int index = head + position;
+            if (index >= values.length) {
+                index -= values.length;
+            }
+            return index;
+        }
+
+        private void grow() {
+            double[] newValues = new double[values.length * 2];
+            long[] newSequences = new long[values.length * 2];
+            for (int i = 0; i < size; i++) {
+                newValues[i] = values[index(i)];
+                newSequences[i] = sequences[index(i)];
+            }
+            values = newValues;
+            sequences = newSequences;
+            head = 0;
+        }
+    }
+}
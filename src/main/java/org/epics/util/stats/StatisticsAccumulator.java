@@ -0,0 +1,243 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats;
+
+import org.epics.util.array.CollectionNumber;
+import org.epics.util.array.CollectionNumbers;
+import org.epics.util.array.ConsumerDouble;
+import org.epics.util.array.ListNumber;
+
+/**
+ * Accumulates statistics incrementally, excluding NaN values.
+ * <p>
+ * Instead of the sum of the squares, the accumulator keeps the mean
+ * and the sum of the squared differences from the mean, which are
+ * updated with Welford's algorithm for single values and combined with
+ * Chan's formula when merging partial results. This retains precision
+ * for signals with a large offset compared to their variation, and allows
+ * to calculate the statistics of different parts of the data separately
+ * (e.g. on different threads) and then combine them. Adding values
+ * does not allocate.
+ * <p>
+ * The accumulator is not thread-safe.
+ *
+ * @author carcassi
+ */
+public class StatisticsAccumulator implements ConsumerDouble {
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private int count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double mean;
+    private double m2;
+    private double[] buffer;
+
+    /**
+     * Adds a value. NaN values are skipped.
+     *
+     * @param value the new value
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value > max)
+            max = value;
+        if (value < min)
+            min = value;
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    /**
+     * Adds a value. Same as {@link #add(double)}, so that the
+     * accumulator can be passed to {@link CollectionNumber#forEachDouble(ConsumerDouble) }.
+     *
+     * @param value the new value
+     */
+    @Override
+    public void accept(double value) {
+        add(value);
+    }
+
+    /**
+     * Adds all the values of the collection. NaN values are skipped.
+     * <p>
+     * Lists are read in blocks: the statistics of each block are calculated
+     * with two passes (first the mean, then the squared differences) and
+     * then merged, which avoids a division for each value.
+     *
+     * @param data the new values
+     */
+    public void add(CollectionNumber data) {
+        if (data instanceof ListNumber) {
+            ListNumber list = (ListNumber) data;
+            add(list, 0, list.size());
+        } else {
+            data.forEachDouble(this);
+        }
+    }
+
+    /**
+     * Adds the values of the list in the given range. NaN values are skipped.
+     *
+     * @param data the list
+     * @param fromIndex the first element to add (inclusive)
+     * @param toIndex the last element to add (exclusive)
+     */
+    public void add(ListNumber data, int fromIndex, int toIndex) {
+        double[] array = CollectionNumbers.wrappedDoubleArray(data);
+        if (array != null) {
+            // Blocks are taken directly from the array, without copying
+            for (int offset = fromIndex; offset < toIndex; offset += BUFFER_SIZE) {
+                addBlock(array, offset, Math.min(BUFFER_SIZE, toIndex - offset));
+            }
+            return;
+        }
+        if (buffer == null) {
+            buffer = new double[BUFFER_SIZE];
+        }
+        for (int offset = fromIndex; offset < toIndex; offset += buffer.length) {
+            int length = Math.min(buffer.length, toIndex - offset);
+            data.getDoubles(offset, buffer, 0, length);
+            addBlock(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Adds the values of the array in the given range, computing their
+     * statistics with two passes and merging them. NaN values are skipped.
+     */
+    void addBlock(double[] values, int offset, int length) {
+        int blockCount = 0;
+        double blockMin = Double.POSITIVE_INFINITY;
+        double blockMax = Double.NEGATIVE_INFINITY;
+        double blockTotal = 0;
+        for (int i = offset; i < offset + length; i++) {
+            double value = values[i];
+            if (!Double.isNaN(value)) {
+                if (value > blockMax)
+                    blockMax = value;
+                if (value < blockMin)
+                    blockMin = value;
+                blockTotal += value;
+                blockCount++;
+            }
+        }
+        if (blockCount == 0) {
+            return;
+        }
+
+        double blockMean = blockTotal / blockCount;
+        double blockM2 = 0;
+        for (int i = offset; i < offset + length; i++) {
+            double value = values[i];
+            if (!Double.isNaN(value)) {
+                double delta = value - blockMean;
+                blockM2 += delta * delta;
+            }
+        }
+        merge(blockCount, blockMin, blockMax, blockMean, blockM2);
+    }
+
+    /**
+     * Adds the values accumulated by another accumulator.
+     *
+     * @param other another accumulator; not modified
+     */
+    public void merge(StatisticsAccumulator other) {
+        merge(other.count, other.min, other.max, other.mean, other.m2);
+    }
+
+    /**
+     * Adds the values summarized by the given statistics. The sum of
+     * the squared differences is reconstructed from the standard deviation.
+     *
+     * @param stats the statistics to add; can be null
+     */
+    public void merge(Statistics stats) {
+        if (stats == null) {
+            return;
+        }
+        merge(stats.getCount(), Ranges.minimum(stats), Ranges.maximum(stats),
+                stats.getAverage(), stats.getStdDev() * stats.getStdDev() * stats.getCount());
+    }
+
+    private void merge(int otherCount, double otherMin, double otherMax, double otherMean, double otherM2) {
+        if (otherCount == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = otherCount;
+            min = otherMin;
+            max = otherMax;
+            mean = otherMean;
+            m2 = otherM2;
+            return;
+        }
+
+        if (otherMax > max)
+            max = otherMax;
+        if (otherMin < min)
+            min = otherMin;
+        int newCount = count + otherCount;
+        double delta = otherMean - mean;
+        mean += delta * otherCount / newCount;
+        m2 += otherM2 + delta * delta * ((double) count * otherCount / newCount);
+        count = newCount;
+    }
+
+    /**
+     * Removes all the values.
+     */
+    public void clear() {
+        count = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        mean = 0;
+        m2 = 0;
+    }
+
+    /**
+     * The number of values (excluding NaN) accumulated.
+     *
+     * @return the number of values
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * The statistics for the values accumulated so far.
+     *
+     * @return the statistics; null if no value was accumulated
+     */
+    public Statistics getStatistics() {
+        if (count == 0) {
+            return null;
+        }
+        return new StatisticsUtil.StatisticsImpl(count, min, max, mean, Math.sqrt(m2 / count));
+    }
+
+    /**
+     * Stores the statistics for the values accumulated so far in
+     * the given holder, without allocating.
+     *
+     * @param result the holder for the result; count is zero if no value was accumulated
+     * @return the given holder
+     */
+    public MutableStatistics getStatistics(MutableStatistics result) {
+        if (count == 0) {
+            result.clear();
+        } else {
+            result.set(count, min, max, mean, Math.sqrt(m2 / count));
+        }
+        return result;
+    }
+}
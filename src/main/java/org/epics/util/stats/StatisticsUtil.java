@@ -4,10 +4,16 @@
  */
 package org.epics.util.stats;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import org.epics.util.array.ArrayDouble;
 import org.epics.util.array.CollectionNumber;
-import org.epics.util.array.IteratorNumber;
+import org.epics.util.array.CollectionNumbers;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.SharedForkJoinPool;
 
 /**
  * Utility class to calculate statistical information.
@@ -16,7 +22,7 @@ import org.epics.util.array.IteratorNumber;
  */
 public class StatisticsUtil {
     
-    private static class StatisticsImpl implements Statistics {
+    static class StatisticsImpl implements Statistics, RangeDouble {
         
         private final int count;
         private final double minimum;
@@ -47,6 +53,16 @@ public class StatisticsUtil {
             return maximum;
         }
 
+        @Override
+        public double getMinimumDouble() {
+            return minimum;
+        }
+
+        @Override
+        public double getMaximumDouble() {
+            return maximum;
+        }
+
         @Override
         public double getAverage() {
             return average;
@@ -66,41 +82,221 @@ public class StatisticsUtil {
      * @return the calculated statistics
      */
     public static Statistics statisticsOf(CollectionNumber data) {
-        IteratorNumber iterator = data.iterator();
-        if (!iterator.hasNext()) {
-            return null;
-        }
-        int count = 0;
-        double min = iterator.nextDouble();
-        while (Double.isNaN(min)) {
-            if (!iterator.hasNext()) {
-                return null;
-            } else {
-                min = iterator.nextDouble();
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        accumulator.add(data);
+        return accumulator.getStatistics();
+    }
+    
+    /**
+     * Calculates data statistics, excluding NaN values, storing them
+     * in the given holder. The minimum and maximum are never boxed.
+     * For repeated calculations with no allocation at all, reuse
+     * a {@link StatisticsAccumulator} and call
+     * {@link StatisticsAccumulator#getStatistics(MutableStatistics) }.
+     * 
+     * @param data the data
+     * @param result the holder for the result; count is zero if there are no values
+     * @return the given holder
+     */
+    public static MutableStatistics statisticsOf(CollectionNumber data, MutableStatistics result) {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        accumulator.add(data);
+        return accumulator.getStatistics(result);
+    }
+    
+    /**
+     * Calculates the statistics of each column, excluding NaN values,
+     * in a single pass over all the columns.
+     * See {@link #columnStatisticsOf(ListNumber[], boolean, MutableStatistics[]) }.
+     * 
+     * @param columns the data; all the columns must have the same size
+     * @return the statistics of each column; null for a column with no values
+     */
+    public static List<Statistics> columnStatisticsOf(ListNumber... columns) {
+        return columnStatisticsOf(false, columns);
+    }
+    
+    /**
+     * Calculates the statistics of each column, excluding NaN values,
+     * in a single pass over all the columns, optionally
+     * excluding the whole row when any of the columns is NaN.
+     * See {@link #columnStatisticsOf(ListNumber[], boolean, MutableStatistics[]) }.
+     * 
+     * @param skipNaNRows true if a NaN in a column excludes the values of all columns at the same index
+     * @param columns the data; all the columns must have the same size
+     * @return the statistics of each column; null for a column with no values
+     */
+    public static List<Statistics> columnStatisticsOf(boolean skipNaNRows, ListNumber... columns) {
+        StatisticsAccumulator[] accumulators = columnAccumulators(columns, skipNaNRows);
+        List<Statistics> result = new ArrayList<>(accumulators.length);
+        for (StatisticsAccumulator accumulator : accumulators) {
+            result.add(accumulator.getStatistics());
+        }
+        return result;
+    }
+    
+    /**
+     * Calculates the statistics of each column, excluding NaN values,
+     * in a single pass over all the columns, and stores them
+     * in the given holders.
+     * <p>
+     * The columns are read together in blocks: each block is read from
+     * all the columns, and the statistics are updated, before moving on
+     * to the next, so that the data is read only once. If NaN rows are
+     * skipped, the statistics of all columns are calculated on the same
+     * points, as needed, for example, for the axes of a scatter plot.
+     * 
+     * @param columns the data; all the columns must have the same size
+     * @param skipNaNRows true if a NaN in a column excludes the values of all columns at the same index
+     * @param results the holders for the results, one for each column;
+     *        count is zero for a column with no values
+     */
+    public static void columnStatisticsOf(ListNumber[] columns, boolean skipNaNRows, MutableStatistics[] results) {
+        if (results.length != columns.length) {
+            throw new IllegalArgumentException("Need one result for each column (" + results.length + " results, " + columns.length + " columns)");
+        }
+        StatisticsAccumulator[] accumulators = columnAccumulators(columns, skipNaNRows);
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i].getStatistics(results[i]);
+        }
+    }
+    
+    private static final int COLUMN_BLOCK_SIZE = 1024;
+    
+    private static StatisticsAccumulator[] columnAccumulators(ListNumber[] columns, boolean skipNaNRows) {
+        int size = columns.length == 0 ? 0 : columns[0].size();
+        for (int c = 1; c < columns.length; c++) {
+            if (columns[c].size() != size) {
+                throw new IllegalArgumentException("Columns do not match in size (" + size + " != " + columns[c].size() + ")");
             }
         }
-        double max = min;
-        double total = min;
-        double totalSquare = min*min;
-        count++;
         
-        while (iterator.hasNext()) {
-            double value = iterator.nextDouble();
-            if (!Double.isNaN(value)) {
-                if (value > max)
-                    max = value;
-                if (value < min)
-                    min = value;
-                total += value;
-                totalSquare += value*value;
-                count++;
+        StatisticsAccumulator[] accumulators = new StatisticsAccumulator[columns.length];
+        double[][] arrays = new double[columns.length][];
+        double[][] blocks = new double[columns.length][];
+        for (int c = 0; c < columns.length; c++) {
+            accumulators[c] = new StatisticsAccumulator();
+            // Arrays are read in place, unless NaN rows need to be masked
+            arrays[c] = skipNaNRows ? null : CollectionNumbers.wrappedDoubleArray(columns[c]);
+            if (arrays[c] == null) {
+                blocks[c] = new double[COLUMN_BLOCK_SIZE];
             }
         }
         
-        double average = total/count;
-        double stdDev = Math.sqrt(totalSquare / count - average * average);
+        for (int offset = 0; offset < size; offset += COLUMN_BLOCK_SIZE) {
+            int length = Math.min(COLUMN_BLOCK_SIZE, size - offset);
+            for (int c = 0; c < columns.length; c++) {
+                if (arrays[c] == null) {
+                    columns[c].getDoubles(offset, blocks[c], 0, length);
+                }
+            }
+            if (skipNaNRows) {
+                maskNaNRows(blocks, length);
+            }
+            for (int c = 0; c < columns.length; c++) {
+                if (arrays[c] == null) {
+                    accumulators[c].addBlock(blocks[c], 0, length);
+                } else {
+                    accumulators[c].addBlock(arrays[c], offset, length);
+                }
+            }
+        }
+        return accumulators;
+    }
+    
+    // Sets to NaN all the values of the rows that have at least one NaN
+    private static void maskNaNRows(double[][] blocks, int length) {
+        for (int i = 0; i < length; i++) {
+            boolean hasNaN = false;
+            for (int c = 0; c < blocks.length; c++) {
+                if (Double.isNaN(blocks[c][i])) {
+                    hasNaN = true;
+                }
+            }
+            if (hasNaN) {
+                for (int c = 0; c < blocks.length; c++) {
+                    blocks[c][i] = Double.NaN;
+                }
+            }
+        }
+    }
+    
+    /**
+     * The size above which {@link #parallelStatisticsOf(ListNumber)} splits
+     * the calculation across multiple threads.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 18;
+    
+    /**
+     * Calculates data statistics, excluding NaN values, using multiple
+     * threads if the data is larger than {@link #DEFAULT_PARALLEL_THRESHOLD}.
+     * <p>
+     * Since the partial results are combined in a different order, the average
+     * and standard deviation may differ from the ones
+     * calculated by {@link #statisticsOf(CollectionNumber)} within
+     * rounding errors.
+     * 
+     * @param data the data
+     * @return the calculated statistics
+     */
+    public static Statistics parallelStatisticsOf(ListNumber data) {
+        return parallelStatisticsOf(data, DEFAULT_PARALLEL_THRESHOLD);
+    }
+    
+    /**
+     * Calculates data statistics, excluding NaN values, using multiple
+     * threads if the data is larger than the given threshold. The data
+     * is split by index range, and the statistics for each range are calculated
+     * in the fork-join pool and then merged using a {@link StatisticsAccumulator}.
+     * 
+     * @param data the data
+     * @param threshold the minimum size for which the calculation is split
+     * @return the calculated statistics
+     */
+    public static Statistics parallelStatisticsOf(ListNumber data, int threshold) {
+        if (data.size() < threshold) {
+            return statisticsOf(data);
+        }
+        int parallelism = SharedForkJoinPool.getParallelism();
+        int leafSize = Math.max(MIN_LEAF_SIZE, data.size() / (parallelism * 4));
+        StatisticsTask task = new StatisticsTask(data, 0, data.size(), leafSize);
+        return SharedForkJoinPool.invoke(task).getStatistics();
+    }
+    
+    private static final int MIN_LEAF_SIZE = 1 << 14;
+    
+    private static class StatisticsTask extends RecursiveTask<StatisticsAccumulator> {
         
-        return new StatisticsImpl(count, min, max, average, stdDev);
+        private static final long serialVersionUID = 1L;
+        
+        private final ListNumber data;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        public StatisticsTask(ListNumber data, int from, int to, int leafSize) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected StatisticsAccumulator compute() {
+            if (to - from <= leafSize) {
+                StatisticsAccumulator accumulator = new StatisticsAccumulator();
+                accumulator.add(data, from, to);
+                return accumulator;
+            }
+            
+            int middle = (from + to) >>> 1;
+            StatisticsTask left = new StatisticsTask(data, from, middle, leafSize);
+            StatisticsTask right = new StatisticsTask(data, middle, to, leafSize);
+            left.fork();
+            StatisticsAccumulator result = right.compute();
+            result.merge(left.join());
+            return result;
+        }
     }
 
     /**
@@ -110,41 +306,145 @@ public class StatisticsUtil {
      * @return the aggregate of all
      */
     public static Statistics statisticsOf(List<Statistics> data) {
-        if (data.isEmpty())
-            return null;
-        
-        Iterator<Statistics> iterator = data.iterator();
-        if (!iterator.hasNext()) {
-            return null;
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        for (Statistics stats : data) {
+            accumulator.merge(stats);
         }
-        Statistics first = null;
-        while (first == null && iterator.hasNext()) {
-            first = iterator.next();
+        return accumulator.getStatistics();
+    }
+    
+    /**
+     * Calculates the median of the data, excluding NaN values.
+     * See {@link #quantileOf(ListNumber, double) }.
+     * 
+     * @param data the data
+     * @return the median; NaN if there are no values
+     */
+    public static double medianOf(ListNumber data) {
+        return quantileOf(data, 0.5);
+    }
+    
+    /**
+     * Calculates the quantile of the data, excluding NaN values. The
+     * quantile is interpolated linearly between the two closest ranks:
+     * the value at rank (n - 1) p of the sorted data.
+     * <p>
+     * The data is copied once into an array, where the value is found
+     * with a quickselect. This takes O(n) on average and does not require
+     * sorting the data.
+     * 
+     * @param data the data
+     * @param p the probability, from 0 to 1
+     * @return the quantile; NaN if there are no values
+     */
+    public static double quantileOf(ListNumber data, double p) {
+        return quantilesOf(data, p).getDouble(0);
+    }
+    
+    /**
+     * Calculates multiple quantiles of the data, excluding NaN values.
+     * See {@link #quantileOf(ListNumber, double) }. The data is copied
+     * only once, and each selection only looks at the values above the
+     * previous quantile.
+     * 
+     * @param data the data
+     * @param p the probabilities, from 0 to 1
+     * @return the quantiles, in the same order as the probabilities
+     */
+    public static ListDouble quantilesOf(ListNumber data, double... p) {
+        for (int i = 0; i < p.length; i++) {
+            if (!(p[i] >= 0 && p[i] <= 1)) {
+                throw new IllegalArgumentException("Probability must be between 0 and 1 (was " + p[i] + ")");
+            }
         }
-        if (first == null)
-            return null;
-        
-        int count = first.getCount();
-        double min = first.getMinimum().doubleValue();
-        double max = first.getMaximum().doubleValue();
-        double total = first.getAverage() * first.getCount();
-        double totalSquare = (first.getStdDev() * first.getStdDev() + first.getAverage() * first.getAverage()) * first.getCount();
-        
-        while (iterator.hasNext()) {
-            Statistics stats = iterator.next();
-            if (stats.getMaximum().doubleValue() > max)
-                max = stats.getMaximum().doubleValue();
-            if (stats.getMinimum().doubleValue() < min)
-                min = stats.getMinimum().doubleValue();
-            total += stats.getAverage() * stats.getCount();
-            totalSquare += ( stats.getStdDev() * stats.getStdDev() + stats.getAverage() * stats.getAverage() ) * stats.getCount();
-            count += stats.getCount();
+        double[] result = new double[p.length];
+        double[] values = new double[data.size()];
+        data.getDoubles(0, values, 0, values.length);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (!Double.isNaN(values[i])) {
+                values[size++] = values[i];
+            }
+        }
+        if (size == 0) {
+            Arrays.fill(result, Double.NaN);
+            return new ArrayDouble(result);
         }
         
-        double average = total/count;
-        double stdDev = Math.sqrt(totalSquare / count - average * average);
+        // Process the probabilities in increasing order
+        int[] order = new int[p.length];
+        for (int i = 0; i < order.length; i++) {
+            int j = i;
+            while (j > 0 && p[order[j - 1]] > p[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
         
-        return new StatisticsImpl(count, min, max, average, stdDev);
+        int low = 0;
+        for (int i = 0; i < order.length; i++) {
+            double rank = (size - 1) * p[order[i]];
+            int index = (int) rank;
+            select(values, low, size, index);
+            low = index;
+            double value = values[index];
+            if (rank > index) {
+                select(values, index + 1, size, index + 1);
+                value += (rank - index) * (values[index + 1] - value);
+            }
+            result[order[i]] = value;
+        }
+        return new ArrayDouble(result);
+    }
+    
+    /**
+     * Rearranges the range so that the value at index k is the one that
+     * would be there if the range was sorted, with smaller or equal values
+     * before it and greater or equal values after it.
+     */
+    static void select(double[] values, int low, int high, int k) {
+        int depth = 2 * (32 - Integer.numberOfLeadingZeros(high - low));
+        while (high - low > 16) {
+            if (depth-- == 0) {
+                // Too many bad pivots
+                Arrays.sort(values, low, high);
+                return;
+            }
+            
+            int mid = (low + high) >>> 1;
+            double a = values[low];
+            double b = values[mid];
+            double c = values[high - 1];
+            double pivot = a < b ? (b < c ? b : (a < c ? c : a)) : (a < c ? a : (b < c ? c : b));
+            
+            // Three-way partition:
+            // [low, lt) < pivot, [lt, i) == pivot, [gt, high) > pivot
+            int lt = low;
+            int i = low;
+            int gt = high;
+            while (i < gt) {
+                double value = values[i];
+                if (value < pivot) {
+                    values[i++] = values[lt];
+                    values[lt++] = value;
+                } else if (value > pivot) {
+                    values[i] = values[--gt];
+                    values[gt] = value;
+                } else {
+                    i++;
+                }
+            }
+            
+            if (k < lt) {
+                high = lt;
+            } else if (k >= gt) {
+                low = gt;
+            } else {
+                return;
+            }
+        }
+        Arrays.sort(values, low, high);
     }
     
     /**
@@ -158,7 +458,7 @@ public class StatisticsUtil {
         return new LazyStatistics(data);
     }
     
-    private static class LazyStatistics implements Statistics {
+    private static class LazyStatistics implements Statistics, RangeDouble {
         
         private Statistics stats;
         private CollectionNumber data;
@@ -203,6 +503,18 @@ public class StatisticsUtil {
             calculateStats();
             return stats.getMaximum();
         }
+
+        @Override
+        public double getMinimumDouble() {
+            calculateStats();
+            return Ranges.minimum(stats);
+        }
+
+        @Override
+        public double getMaximumDouble() {
+            calculateStats();
+            return Ranges.maximum(stats);
+        }
         
     }
 }
@@ -78,4 +78,53 @@ public class ArrayDoubleTest {
         assertThat(read, not(sameInstance(array)));
         assertThat(read, equalTo(array));
     }
+    
+    @Test
+    public void getDoubles1() {
+        ArrayDouble array = new ArrayDouble(0, 1, 2, 3, 4, 5);
+        double[] dst = new double[5];
+        array.getDoubles(1, dst, 1, 3);
+        assertThat(dst, equalTo(new double[] {0, 1, 2, 3, 0}));
+    }
+    
+    @Test
+    public void getInts1() {
+        ArrayDouble array = new ArrayDouble(0, 1.5, 2.5, 3, 4, 5);
+        int[] dst = new int[3];
+        array.getInts(0, dst, 0, 3);
+        assertThat(dst, equalTo(new int[] {0, 1, 2}));
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void getDoubles2() {
+        ArrayDouble array = new ArrayDouble(0, 1, 2, 3, 4, 5);
+        array.getDoubles(4, new double[5], 0, 3);
+    }
+    
+    @Test
+    public void setDoubles1() {
+        ArrayDouble array = new ArrayDouble(new double[] {0, 1, 2, 3, 4, 5}, false);
+        array.setDoubles(1, new double[] {9, 8, 7, 6}, 1, 3);
+        assertThat(CollectionNumbers.doubleArrayCopyOf(array), equalTo(new double[] {0, 8, 7, 6, 4, 5}));
+    }
+    
+    @Test
+    public void setAll1() {
+        ArrayDouble array = new ArrayDouble(new double[] {0, 1, 2, 3, 4, 5}, false);
+        array.setAll(2, new ArrayInt(9, 8));
+        assertThat(CollectionNumbers.doubleArrayCopyOf(array), equalTo(new double[] {0, 1, 9, 8, 4, 5}));
+    }
+    
+    @Test
+    public void fill1() {
+        ArrayDouble array = new ArrayDouble(new double[] {0, 1, 2, 3, 4, 5}, false);
+        array.fill(1, 4, 0.5);
+        assertThat(CollectionNumbers.doubleArrayCopyOf(array), equalTo(new double[] {0, 0.5, 0.5, 0.5, 4, 5}));
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void fill2() {
+        ArrayDouble array = new ArrayDouble(0, 1, 2, 3, 4, 5);
+        array.fill(0, 6, 0);
+    }
 }
@@ -52,4 +52,81 @@ public class ArrayIntTest {
         assertThat(read, not(sameInstance(array)));
         assertThat(read, equalTo(array));
     }
+    
+    @Test
+    public void getInts1() {
+        ArrayInt array = new ArrayInt(0, 1, 2, 3, 4, 5);
+        int[] dst = new int[4];
+        array.getInts(2, dst, 0, 4);
+        assertThat(dst, equalTo(new int[] {2, 3, 4, 5}));
+    }
+    
+    @Test
+    public void getDoubles1() {
+        ArrayInt array = new ArrayInt(0, 1, 2, 16777217, 4, 5);
+        double[] dst = new double[3];
+        array.getDoubles(1, dst, 0, 3);
+        assertThat(dst, equalTo(new double[] {1, 2, 16777217}));
+        assertThat(array.getDouble(3), equalTo(16777217.0));
+    }
+    
+    @Test
+    public void setDoubles1() {
+        ArrayInt array = new ArrayInt(new int[] {0, 1, 2, 3, 4, 5}, false);
+        array.setDoubles(0, new double[] {9.5, 8.5}, 0, 2);
+        assertThat(CollectionNumbers.intArrayCopyOf(array), equalTo(new int[] {9, 8, 2, 3, 4, 5}));
+    }
+    
+    @Test
+    public void setAll1() {
+        ArrayInt array = new ArrayInt(new int[] {0, 1, 2, 3, 4, 5}, false);
+        array.setAll(3, new ArrayDouble(9, 8, 7));
+        assertThat(CollectionNumbers.intArrayCopyOf(array), equalTo(new int[] {0, 1, 2, 9, 8, 7}));
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void setAll2() {
+        ArrayInt array = new ArrayInt(new int[] {0, 1, 2, 3, 4, 5}, false);
+        array.setAll(4, new ArrayDouble(9, 8, 7));
+    }
+    
+    @Test
+    public void fill1() {
+        ArrayInt array = new ArrayInt(new int[] {0, 1, 2, 3, 4, 5}, false);
+        array.fill(3, 6, 7);
+        assertThat(CollectionNumbers.intArrayCopyOf(array), equalTo(new int[] {0, 1, 2, 7, 7, 7}));
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void setAll3() {
+        ArrayInt array = new ArrayInt(0, 1, 2, 3, 4, 5);
+        array.setAll(0, new ArrayDouble(9, 8, 7));
+    }
+    
+    @Test
+    public void forEachDouble1() {
+        ArrayInt array = new ArrayInt(0, 1, 2, 3, 4, 5);
+        final BufferInt values = new BufferInt();
+        array.forEachDouble(new ConsumerDouble() {
+
+            @Override
+            public void accept(double value) {
+                values.addInt((int) value);
+            }
+        });
+        assertThat(values, equalTo((ListInt) array));
+    }
+    
+    @Test
+    public void reduceDouble1() {
+        ArrayInt array = new ArrayInt(0, 1, 2, 3, 4, 5);
+        double sum = array.reduceDouble(0.5, new BinaryOperatorDouble() {
+
+            @Override
+            public double apply(double left, double right) {
+                return left + right;
+            }
+        });
+        assertThat(sum, equalTo(15.5));
+    }
 }
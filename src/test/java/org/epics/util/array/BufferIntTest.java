@@ -75,4 +75,51 @@ public class BufferIntTest {
         coll.clear();
         assertThat(coll.size(), equalTo(0));
     }
+    
+    @Test
+    public void addAll1() {
+        // Compare with adding one value at a time
+        for (int nInitial = 0; nInitial < 25; nInitial++) {
+            for (int batchSize = 0; batchSize < 45; batchSize += 4) {
+                BufferInt reference = new BufferInt();
+                BufferInt fromArray = new BufferInt();
+                BufferInt fromList = new BufferInt();
+                for (int i = 0; i < nInitial; i++) {
+                    reference.addInt(i);
+                    fromArray.addInt(i);
+                    fromList.addInt(i);
+                }
+                int[] batch = new int[batchSize];
+                for (int i = 0; i < batch.length; i++) {
+                    batch[i] = 100 + i;
+                    reference.addInt(batch[i]);
+                }
+                fromArray.addAll(batch, 0, batchSize);
+                fromList.addAll(new ArrayInt(batch));
+                assertThat(fromArray, equalTo((ListInt) reference));
+                assertThat(fromList, equalTo((ListInt) reference));
+                assertThat(fromArray.getCurrentCapacity(), equalTo(reference.getCurrentCapacity()));
+                assertThat(fromList.getCurrentCapacity(), equalTo(reference.getCurrentCapacity()));
+            }
+        }
+    }
+    
+    @Test(expected=OutOfMemoryError.class)
+    public void addAll2() {
+        // More values than an array can hold: must fail, not loop
+        BufferInt coll = new BufferInt();
+        coll.addInt(1);
+        coll.addAll(new ListInt() {
+
+            @Override
+            public int getInt(int index) {
+                return 0;
+            }
+
+            @Override
+            public int size() {
+                return Integer.MAX_VALUE;
+            }
+        });
+    }
 }
@@ -109,4 +109,91 @@ public class CircularBufferDoubleTest {
         coll.clear();
         assertThat(coll.size(), equalTo(0));
     }
+    
+    @Test
+    public void getDoubles1() {
+        CircularBufferDouble coll = new CircularBufferDouble(10);
+        for (int i = 0; i < 15; i++) {
+            coll.addDouble(i);
+        }
+        double[] dst = new double[10];
+        coll.getDoubles(0, dst, 0, 10);
+        assertThat(dst, equalTo(new double[] {5,6,7,8,9,10,11,12,13,14}));
+        dst = new double[4];
+        coll.getDoubles(4, dst, 1, 3);
+        assertThat(dst, equalTo(new double[] {0,9,10,11}));
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void getDoubles2() {
+        CircularBufferDouble coll = new CircularBufferDouble(10);
+        for (int i = 0; i < 5; i++) {
+            coll.addDouble(i);
+        }
+        coll.getDoubles(0, new double[10], 0, 6);
+    }
+    
+    @Test
+    public void forEachDouble1() {
+        CircularBufferDouble coll = new CircularBufferDouble(10);
+        for (int i = 0; i < 15; i++) {
+            coll.addDouble(i);
+        }
+        final List<Double> values = new ArrayList<Double>();
+        coll.forEachDouble(new ConsumerDouble() {
+
+            @Override
+            public void accept(double value) {
+                values.add(value);
+            }
+        });
+        assertThat(values, contains(5.0, 6.0, 7.0, 8.0, 9.0, 10.0, 11.0, 12.0, 13.0, 14.0));
+    }
+    
+    @Test
+    public void addAll1() {
+        // Compare with adding one value at a time, for batches
+        // of different sizes and different starting points
+        int[] maxCapacities = new int[] {1, 3, 10, 25};
+        int[] batchSizes = new int[] {0, 1, 2, 7, 10, 11, 30};
+        for (int maxCapacity : maxCapacities) {
+            for (int nInitial = 0; nInitial < 30; nInitial++) {
+                for (int batchSize : batchSizes) {
+                    CircularBufferDouble reference = new CircularBufferDouble(maxCapacity);
+                    CircularBufferDouble fromArray = new CircularBufferDouble(maxCapacity);
+                    CircularBufferDouble fromList = new CircularBufferDouble(maxCapacity);
+                    for (int i = 0; i < nInitial; i++) {
+                        reference.addDouble(i);
+                        fromArray.addDouble(i);
+                        fromList.addDouble(i);
+                    }
+                    double[] batch = new double[batchSize + 2];
+                    for (int i = 0; i < batch.length; i++) {
+                        batch[i] = 100 + i;
+                    }
+                    for (int i = 0; i < batchSize; i++) {
+                        reference.addDouble(batch[i + 1]);
+                    }
+                    fromArray.addAll(batch, 1, batchSize);
+                    fromList.addAll(ListMath.limit(new ArrayDouble(batch), 1, batchSize + 1));
+                    assertThat(fromArray, equalTo((ListDouble) reference));
+                    assertThat(fromList, equalTo((ListDouble) reference));
+                    assertThat(fromArray.getCurrentCapacity(), equalTo(reference.getCurrentCapacity()));
+                    
+                    // Following additions must also match
+                    for (int i = 0; i < 7; i++) {
+                        reference.addDouble(200 + i);
+                        fromArray.addDouble(200 + i);
+                    }
+                    assertThat(fromArray, equalTo((ListDouble) reference));
+                }
+            }
+        }
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void addAll2() {
+        CircularBufferDouble coll = new CircularBufferDouble(10);
+        coll.addAll(new double[5], 2, 4);
+    }
 }
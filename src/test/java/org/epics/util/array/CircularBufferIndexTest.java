@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class CircularBufferIndexTest {
+    
+    public CircularBufferIndexTest() {
+    }
+    
+    @Test
+    public void commitWrite1() {
+        CircularBufferIndex ring = new CircularBufferIndex(10, 25);
+        assertThat(ring.size(), equalTo(0));
+        for (int i = 0; i < 9; i++) {
+            assertThat(ring.getEndOffset(), equalTo(i));
+            assertThat(ring.commitWrite(), equalTo(10));
+        }
+        assertThat(ring.commitWrite(), equalTo(20));
+        assertThat(ring.size(), equalTo(10));
+        assertThat(ring.getCurrentCapacity(), equalTo(20));
+        for (int i = 0; i < 10; i++) {
+            ring.commitWrite();
+        }
+        assertThat(ring.getArrayLength(), equalTo(26));
+        assertThat(ring.getCurrentCapacity(), equalTo(25));
+        assertThat(ring.size(), equalTo(20));
+    }
+    
+    @Test
+    public void commitWrite2() {
+        CircularBufferIndex ring = new CircularBufferIndex(3, 3);
+        for (int i = 0; i < 5; i++) {
+            ring.commitWrite();
+        }
+        assertThat(ring.getArrayLength(), equalTo(4));
+        assertThat(ring.size(), equalTo(3));
+        assertThat(ring.getStartOffset(), equalTo(2));
+        assertThat(ring.getEndOffset(), equalTo(1));
+    }
+    
+    @Test
+    public void arrayIndex1() {
+        CircularBufferIndex ring = new CircularBufferIndex(3, 3);
+        for (int i = 0; i < 5; i++) {
+            ring.commitWrite();
+        }
+        assertThat(ring.arrayIndex(0), equalTo(2));
+        assertThat(ring.arrayIndex(1), equalTo(3));
+        assertThat(ring.arrayIndex(2), equalTo(0));
+    }
+    
+    @Test
+    public void clear1() {
+        CircularBufferIndex ring = new CircularBufferIndex(3, 3);
+        for (int i = 0; i < 5; i++) {
+            ring.commitWrite();
+        }
+        ring.clear();
+        assertThat(ring.size(), equalTo(0));
+        assertThat(ring.getStartOffset(), equalTo(0));
+        assertThat(ring.getEndOffset(), equalTo(0));
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void checkRange1() {
+        CircularBufferIndex ring = new CircularBufferIndex(10, 10);
+        for (int i = 0; i < 5; i++) {
+            ring.commitWrite();
+        }
+        ring.checkRange(0, 5);
+        ring.checkRange(2, 4);
+    }
+}
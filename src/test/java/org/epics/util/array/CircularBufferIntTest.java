@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+import static org.epics.util.array.CollectionTest.testCollection;
+import static org.epics.util.array.ListTest.testList;
+
+/**
+ *
+ * @author carcassi
+ */
+public class CircularBufferIntTest {
+    
+    public CircularBufferIntTest() {
+    }
+    
+    @Test
+    public void iteration1() {
+        CircularBufferInt coll = new CircularBufferInt(15);
+        for (int i = 0; i < 10; i++) {
+            coll.addInt(1);
+        }
+        testCollection(coll);
+        testList(coll);
+    }
+    
+    @Test
+    public void add1() {
+        CircularBufferInt coll = new CircularBufferInt(10);
+        for (int i = 0; i < 11; i++) {
+            coll.addInt(i);
+        }
+        assertThat(coll, equalTo((ListInt) new ArrayInt(1,2,3,4,5,6,7,8,9,10)));
+    }
+    
+    @Test
+    public void add2() {
+        CircularBufferInt coll = new CircularBufferInt(25);
+        for (int i = 0; i < 10; i++) {
+            coll.addInt(i);
+        }
+        assertThat(coll.getCurrentCapacity(), equalTo(20));
+        for (int i = 0; i < 20; i++) {
+            coll.addInt(i);
+        }
+        assertThat(coll.size(), equalTo(25));
+        assertThat(coll.getCurrentCapacity(), equalTo(25));
+        assertThat(coll.getInt(0), equalTo(5));
+        assertThat(coll.getInt(24), equalTo(19));
+    }
+    
+    @Test
+    public void getInts1() {
+        CircularBufferInt coll = new CircularBufferInt(10);
+        for (int i = 0; i < 15; i++) {
+            coll.addInt(i);
+        }
+        int[] dst = new int[4];
+        coll.getInts(4, dst, 1, 3);
+        assertThat(dst, equalTo(new int[] {0,9,10,11}));
+        double[] doubles = new double[10];
+        coll.getDoubles(0, doubles, 0, 10);
+        assertThat(doubles, equalTo(new double[] {5,6,7,8,9,10,11,12,13,14}));
+    }
+    
+    @Test
+    public void clear1() {
+        CircularBufferInt coll = new CircularBufferInt(10);
+        for (int i = 0; i < 5; i++) {
+            coll.addInt(i);
+        }
+        coll.clear();
+        assertThat(coll.size(), equalTo(0));
+    }
+}
@@ -340,4 +340,57 @@ public class CollectionNumbersTest {
         long[] array2 = CollectionNumbers.longArrayWrappedOrCopy(coll);
         assertThat(array2, equalTo(new long[] {0,1,2,3,4,5,6,7,8,9}));
     }
+    
+    @Test
+    public void reduceDouble1() {
+        CollectionDouble coll = new CollectionDouble() {
+
+            @Override
+            public IteratorDouble iterator() {
+                return new ArrayDouble(1, 2, 3).iterator();
+            }
+
+            @Override
+            public int size() {
+                return 3;
+            }
+
+            @Override
+            public void forEachDouble(ConsumerDouble action) {
+                CollectionNumbers.forEachDouble(this, action);
+            }
+
+            @Override
+            public void forEachLong(ConsumerLong action) {
+                CollectionNumbers.forEachLong(this, action);
+            }
+
+            @Override
+            public double reduceDouble(double identity, BinaryOperatorDouble op) {
+                return CollectionNumbers.reduceDouble(this, identity, op);
+            }
+        };
+        BinaryOperatorDouble max = new BinaryOperatorDouble() {
+
+            @Override
+            public double apply(double left, double right) {
+                return Math.max(left, right);
+            }
+        };
+        assertThat(CollectionNumbers.reduceDouble(coll, 0, max), equalTo(3.0));
+        assertThat(CollectionNumbers.reduceDouble(new ArrayLong(5, 2, 7, 1), 0, max), equalTo(7.0));
+    }
+    
+    @Test
+    public void forEachLong1() {
+        final long[] sum = new long[1];
+        CollectionNumbers.forEachLong(new ArrayDouble(1.5, 2.5, 3.5), new ConsumerLong() {
+
+            @Override
+            public void accept(long value) {
+                sum[0] += value;
+            }
+        });
+        assertThat(sum[0], equalTo(6L));
+    }
 }
@@ -47,6 +47,18 @@ public class CollectionTest {
             public int size() {
                 return 10;
             }
+
+            public void forEachDouble(ConsumerDouble action) {
+                CollectionNumbers.forEachDouble(this, action);
+            }
+
+            public void forEachLong(ConsumerLong action) {
+                CollectionNumbers.forEachLong(this, action);
+            }
+
+            public double reduceDouble(double identity, BinaryOperatorDouble op) {
+                return CollectionNumbers.reduceDouble(this, identity, op);
+            }
         };
         testCollection(coll);
     }
@@ -74,6 +86,18 @@ public class CollectionTest {
             public int size() {
                 return 10;
             }
+
+            public void forEachDouble(ConsumerDouble action) {
+                CollectionNumbers.forEachDouble(this, action);
+            }
+
+            public void forEachLong(ConsumerLong action) {
+                CollectionNumbers.forEachLong(this, action);
+            }
+
+            public double reduceDouble(double identity, BinaryOperatorDouble op) {
+                return CollectionNumbers.reduceDouble(this, identity, op);
+            }
         };
         testCollection(coll);
     }
@@ -101,6 +125,18 @@ public class CollectionTest {
             public int size() {
                 return 10;
             }
+
+            public void forEachDouble(ConsumerDouble action) {
+                CollectionNumbers.forEachDouble(this, action);
+            }
+
+            public void forEachLong(ConsumerLong action) {
+                CollectionNumbers.forEachLong(this, action);
+            }
+
+            public double reduceDouble(double identity, BinaryOperatorDouble op) {
+                return CollectionNumbers.reduceDouble(this, identity, op);
+            }
         };
         testCollection(coll);
     }
@@ -128,6 +164,18 @@ public class CollectionTest {
             public int size() {
                 return 10;
             }
+
+            public void forEachDouble(ConsumerDouble action) {
+                CollectionNumbers.forEachDouble(this, action);
+            }
+
+            public void forEachLong(ConsumerLong action) {
+                CollectionNumbers.forEachLong(this, action);
+            }
+
+            public double reduceDouble(double identity, BinaryOperatorDouble op) {
+                return CollectionNumbers.reduceDouble(this, identity, op);
+            }
         };
         testCollection(coll);
     }
@@ -155,6 +203,18 @@ public class CollectionTest {
             public int size() {
                 return 10;
             }
+
+            public void forEachDouble(ConsumerDouble action) {
+                CollectionNumbers.forEachDouble(this, action);
+            }
+
+            public void forEachLong(ConsumerLong action) {
+                CollectionNumbers.forEachLong(this, action);
+            }
+
+            public double reduceDouble(double identity, BinaryOperatorDouble op) {
+                return CollectionNumbers.reduceDouble(this, identity, op);
+            }
         };
         testCollection(coll);
     }
@@ -182,6 +242,18 @@ public class CollectionTest {
             public int size() {
                 return 10;
             }
+
+            public void forEachDouble(ConsumerDouble action) {
+                CollectionNumbers.forEachDouble(this, action);
+            }
+
+            public void forEachLong(ConsumerLong action) {
+                CollectionNumbers.forEachLong(this, action);
+            }
+
+            public double reduceDouble(double identity, BinaryOperatorDouble op) {
+                return CollectionNumbers.reduceDouble(this, identity, op);
+            }
         };
         testCollection(coll);
     }
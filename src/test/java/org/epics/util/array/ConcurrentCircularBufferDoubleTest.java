@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class ConcurrentCircularBufferDoubleTest {
+
+    public ConcurrentCircularBufferDoubleTest() {
+    }
+
+    @Test
+    public void snapshot1() {
+        ConcurrentCircularBufferDouble buffer = new ConcurrentCircularBufferDouble(5);
+        assertThat(buffer.snapshot(), equalTo((ListDouble) new ArrayDouble()));
+        buffer.addDouble(0);
+        buffer.addDouble(1);
+        buffer.addDouble(2);
+        assertThat(buffer.snapshot(), equalTo((ListDouble) new ArrayDouble(0, 1, 2)));
+        assertThat(buffer.getSequence(), equalTo(3L));
+    }
+
+    @Test
+    public void snapshot2() {
+        ConcurrentCircularBufferDouble buffer = new ConcurrentCircularBufferDouble(5);
+        for (int i = 0; i < 12; i++) {
+            buffer.addDouble(i);
+        }
+        assertThat(buffer.snapshot(), equalTo((ListDouble) new ArrayDouble(7, 8, 9, 10, 11)));
+        assertThat(buffer.getCapacity(), equalTo(5));
+    }
+
+    @Test
+    public void poll1() {
+        ConcurrentCircularBufferDouble buffer = new ConcurrentCircularBufferDouble(5);
+        buffer.addDouble(-1);
+        ConcurrentCircularBufferDouble.Reader reader = buffer.newReader();
+        assertThat(reader.poll(), equalTo((ListDouble) new ArrayDouble()));
+        buffer.addDouble(0);
+        buffer.addDouble(1);
+        assertThat(reader.poll(), equalTo((ListDouble) new ArrayDouble(0, 1)));
+        assertThat(reader.poll(), equalTo((ListDouble) new ArrayDouble()));
+        buffer.addDouble(2);
+        assertThat(reader.poll(), equalTo((ListDouble) new ArrayDouble(2)));
+        assertThat(reader.getCursor(), equalTo(4L));
+        assertThat(reader.getLostCount(), equalTo(0L));
+    }
+
+    @Test
+    public void poll2() {
+        ConcurrentCircularBufferDouble buffer = new ConcurrentCircularBufferDouble(5);
+        ConcurrentCircularBufferDouble.Reader reader = buffer.newReader();
+        for (int i = 0; i < 8; i++) {
+            buffer.addDouble(i);
+        }
+        assertThat(reader.poll(), equalTo((ListDouble) new ArrayDouble(3, 4, 5, 6, 7)));
+        assertThat(reader.getLostCount(), equalTo(3L));
+    }
+
+    @Test
+    public void read1() {
+        ConcurrentCircularBufferDouble buffer = new ConcurrentCircularBufferDouble(10);
+        ConcurrentCircularBufferDouble.Reader reader = buffer.newReader();
+        for (int i = 0; i < 7; i++) {
+            buffer.addDouble(i);
+        }
+        double[] dst = new double[4];
+        assertThat(reader.read(dst, 1, 3), equalTo(3));
+        assertThat(dst, equalTo(new double[] {0, 0, 1, 2}));
+        assertThat(reader.read(dst, 0, 4), equalTo(4));
+        assertThat(dst, equalTo(new double[] {3, 4, 5, 6}));
+        assertThat(reader.read(dst, 0, 4), equalTo(0));
+    }
+
+    @Test
+    public void concurrentRead1() throws Exception {
+        final ConcurrentCircularBufferDouble buffer = new ConcurrentCircularBufferDouble(64);
+        final int nValues = 200000;
+        final AtomicReference<String> error = new AtomicReference<>();
+        final ConcurrentCircularBufferDouble.Reader reader = buffer.newReader();
+        Thread consumer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                double[] dst = new double[16];
+                long received = 0;
+                while (received + reader.getLostCount() < nValues) {
+                    int n = reader.read(dst, 0, dst.length);
+                    long first = reader.getCursor() - n;
+                    for (int i = 0; i < n; i++) {
+                        // Values must be the ones at the given sequence
+                        if (dst[i] != first + i) {
+                            error.set("Expected " + (first + i) + " but was " + dst[i]);
+                            return;
+                        }
+                    }
+                    received += n;
+                    ListDouble snapshot = buffer.snapshot();
+                    for (int i = 1; i < snapshot.size(); i++) {
+                        if (snapshot.getDouble(i) != snapshot.getDouble(i - 1) + 1) {
+                            error.set("Inconsistent snapshot " + snapshot);
+                            return;
+                        }
+                    }
+                }
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < nValues; i++) {
+            buffer.addDouble(i);
+        }
+        consumer.join(10000);
+        assertThat(consumer.isAlive(), equalTo(false));
+        assertThat(error.get(), nullValue());
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class FFTTest {
+    
+    public FFTTest() {
+    }
+    
+    private static double[][] naiveDft(double[] re, double[] im) {
+        int n = re.length;
+        double[][] result = new double[2][n];
+        for (int k = 0; k < n; k++) {
+            for (int j = 0; j < n; j++) {
+                double angle = -2 * Math.PI * (((long) j * k) % n) / n;
+                result[0][k] += re[j] * Math.cos(angle) - im[j] * Math.sin(angle);
+                result[1][k] += re[j] * Math.sin(angle) + im[j] * Math.cos(angle);
+            }
+        }
+        return result;
+    }
+    
+    private static double[] random(Random rand, int size) {
+        double[] data = new double[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = rand.nextDouble() * 2 - 1;
+        }
+        return data;
+    }
+    
+    private static void assertClose(double[] expected, double[] actual, int size) {
+        for (int i = 0; i < size; i++) {
+            assertEquals("Index " + i, expected[i], actual[i], 1e-9 * Math.max(1, size));
+        }
+    }
+
+    @Test
+    public void transform1() {
+        // Powers of two and Bluestein sizes, compared with the definition
+        Random rand = new Random(1);
+        int[] sizes = new int[] {1, 2, 3, 4, 5, 6, 7, 8, 12, 16, 17, 31, 64, 100, 128, 243, 1000};
+        for (int size : sizes) {
+            double[] re = random(rand, size);
+            double[] im = random(rand, size);
+            double[][] expected = naiveDft(re, im);
+            FFT.forSize(size).transform(re, im);
+            assertClose(expected[0], re, size);
+            assertClose(expected[1], im, size);
+        }
+    }
+    
+    @Test
+    public void inverse1() {
+        Random rand = new Random(2);
+        for (int size : new int[] {1, 8, 15, 1024, 1000}) {
+            double[] re = random(rand, size);
+            double[] im = random(rand, size);
+            double[] re2 = re.clone();
+            double[] im2 = im.clone();
+            FFT fft = FFT.forSize(size);
+            fft.transform(re2, im2);
+            fft.inverse(re2, im2);
+            assertClose(re, re2, size);
+            assertClose(im, im2, size);
+        }
+    }
+    
+    @Test
+    public void realTransform1() {
+        Random rand = new Random(3);
+        for (int size : new int[] {1, 2, 3, 4, 6, 8, 10, 13, 32, 50, 512, 1000}) {
+            double[] data = random(rand, size);
+            double[][] expected = naiveDft(data, new double[size]);
+            double[] re = new double[size];
+            double[] im = new double[size];
+            FFT.forSize(size).realTransform(new ArrayDouble(data), re, im);
+            assertClose(expected[0], re, size);
+            assertClose(expected[1], im, size);
+            // Same through the general method
+            FFT.forSize(size).transform(new ArrayDouble(data), null, re, im);
+            assertClose(expected[0], re, size);
+            assertClose(expected[1], im, size);
+        }
+    }
+    
+    @Test
+    public void transform2() {
+        // Lists of different types into larger arrays
+        ListNumber re = new ArrayInt(1, 2, 3, 4, 5, 6);
+        ListNumber im = new ArrayFloat(0, 1, 0, 1, 0, 1);
+        double[][] expected = naiveDft(new double[] {1, 2, 3, 4, 5, 6}, new double[] {0, 1, 0, 1, 0, 1});
+        double[] resultRe = new double[10];
+        double[] resultIm = new double[10];
+        FFT.forSize(6).transform(re, im, resultRe, resultIm);
+        assertClose(expected[0], resultRe, 6);
+        assertClose(expected[1], resultIm, 6);
+        assertThat(resultRe[6], equalTo(0.0));
+    }
+    
+    @Test
+    public void forSize1() {
+        assertThat(FFT.forSize(1024), sameInstance(FFT.forSize(1024)));
+        assertThat(FFT.forSize(1000).getSize(), equalTo(1000));
+        // Only the most recently used plans are kept for other sizes
+        FFT plan = FFT.forSize(1000);
+        assertThat(FFT.forSize(1000), sameInstance(plan));
+        for (int size = 3; size < 3 + 2 * FFT.MAX_CACHED_PLANS; size += 2) {
+            FFT.forSize(size);
+        }
+        assertThat(FFT.forSize(1000), not(sameInstance(plan)));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void forSize2() {
+        FFT.forSize(0);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void transform3() {
+        FFT.forSize(16).transform(new double[16], new double[8]);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void realTransform2() {
+        FFT.forSize(16).realTransform(new ArrayDouble(new double[8]), new double[16], new double[16]);
+    }
+}
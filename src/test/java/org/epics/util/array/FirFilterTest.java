@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class FirFilterTest {
+    
+    public FirFilterTest() {
+    }
+
+    @Test
+    public void filter1() {
+        FirFilter filter = new FirFilter(new ArrayDouble(0.5, 0.25));
+        assertThat(filter.getSize(), equalTo(2));
+        assertThat(filter.filter(4), equalTo(2.0));
+        assertThat(filter.filter(8), equalTo(5.0));
+        assertThat(filter.filter(new ArrayInt(0, 4)), equalTo((ListDouble) new ArrayDouble(2, 2)));
+        filter.reset();
+        assertThat(filter.filter(new ArrayInt(4, 8)), equalTo((ListDouble) new ArrayDouble(2, 5)));
+    }
+    
+    @Test
+    public void filter2() {
+        // Filtering in blocks of any size matches the convolution
+        int size = 5000;
+        ListNumber data = ListMath.rescale(ListNumbers.linearList(0, 1, size), 0.37, 0);
+        ListDouble coefficients = Window.HANN.coefficients(31);
+        ArrayDouble expected = ListMath.convolve(data, coefficients);
+        
+        for (int blockSize : new int[] {1, 7, 1024, 1500, size}) {
+            FirFilter filter = new FirFilter(coefficients);
+            double[] result = new double[size];
+            CircularBufferDouble buffer = new CircularBufferDouble(blockSize);
+            for (int from = 0; from < size; from += blockSize) {
+                int length = Math.min(blockSize, size - from);
+                buffer.clear();
+                buffer.addAll(ListMath.limit(data, from, from + length));
+                filter.filter(buffer, result, from);
+            }
+            for (int i = 0; i < size; i++) {
+                assertEquals(expected.getDouble(i), result[i], 1e-9);
+            }
+        }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void new1() {
+        new FirFilter(new ArrayDouble());
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void filter3() {
+        new FirFilter(new ArrayDouble(1)).filter(new ArrayDouble(1, 2, 3), new double[4], 2);
+    }
+}
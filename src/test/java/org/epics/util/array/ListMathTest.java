@@ -61,4 +61,235 @@ public class ListMathTest {
         ListDouble y = new ArrayDouble(0, 0, 0, 0, 0, 0, 0, 0);
         List<ListNumber> res = ListMath.dft(x, y);
     }
+    
+    @Test
+    public void getDoubles1() {
+        ArrayDouble array1 = new ArrayDouble(0, 1, 2, 3, 4, 5);
+        ArrayInt array2 = new ArrayInt(5, 4, 3, 2, 1, 0);
+        double[] dst = new double[4];
+        ListMath.add(array1, array2).getDoubles(1, dst, 0, 4);
+        assertThat(dst, equalTo(new double[] {5, 5, 5, 5}));
+        ListMath.subtract(array1, array2).getDoubles(1, dst, 0, 4);
+        assertThat(dst, equalTo(new double[] {-3, -1, 1, 3}));
+        ListMath.multiply(array1, array2).getDoubles(1, dst, 0, 4);
+        assertThat(dst, equalTo(new double[] {4, 6, 6, 4}));
+        ListMath.divide(array2, array1).getDoubles(1, dst, 0, 4);
+        assertThat(dst, equalTo(new double[] {4, 1.5, 2.0/3.0, 0.25}));
+        ListMath.rescale(array1, 2, 1).getDoubles(2, dst, 1, 3);
+        assertThat(dst, equalTo(new double[] {4, 5, 7, 9}));
+        ListMath.limit(array1, 2, 5).getDoubles(0, dst, 0, 3);
+        assertThat(dst, equalTo(new double[] {2, 3, 4, 9}));
+    }
+    
+    @Test
+    public void getDoubles2() {
+        // The destination is the array backing one of the lists
+        double[] dst = new double[] {10, 20, 30};
+        ListMath.add(new ArrayDouble(1, 2, 3), new ArrayDouble(dst)).getDoubles(0, dst, 0, 3);
+        assertThat(dst, equalTo(new double[] {11, 22, 33}));
+        ListMath.subtract(new ArrayDouble(dst), new ArrayInt(1, 2, 3)).getDoubles(0, dst, 0, 3);
+        assertThat(dst, equalTo(new double[] {10, 20, 30}));
+        ListMath.multiply(new ArrayInt(1, 2, 3), new ArrayDouble(dst)).getDoubles(0, dst, 0, 3);
+        assertThat(dst, equalTo(new double[] {10, 40, 90}));
+        ListMath.divide(new ArrayInt(1, 2, 3), new ArrayDouble(dst)).getDoubles(0, dst, 0, 3);
+        assertThat(dst, equalTo(new double[] {0.1, 0.05, 1.0 / 30}));
+        dst = new double[] {10, 20, 30};
+        ListMath.materialize(ListMath.add(new ArrayDouble(1, 2, 3), new ArrayDouble(dst)), dst);
+        assertThat(dst, equalTo(new double[] {11, 22, 33}));
+    }
+    
+    @Test
+    public void forEachDouble1() {
+        ArrayDouble array1 = new ArrayDouble(0, 1, 2, 3);
+        final double[] values = new double[4];
+        ListMath.rescale(array1, 2, 1).forEachDouble(new ConsumerDouble() {
+            
+            private int index;
+
+            @Override
+            public void accept(double value) {
+                values[index++] = value;
+            }
+        });
+        assertThat(values, equalTo(new double[] {1, 3, 5, 7}));
+    }
+    
+    @Test
+    public void eager1() {
+        // Array backed lists
+        ListDouble array1 = new ArrayDouble(0, 1, 2, 3);
+        ListDouble array2 = new ArrayDouble(4, 2, 1, 0.5);
+        double[] result = new double[4];
+        ArrayDouble sum = ListMath.add(array1, array2, result);
+        assertThat(sum, equalTo((ListDouble) new ArrayDouble(4, 3, 3, 3.5)));
+        assertThat(CollectionNumbers.wrappedDoubleArray(sum), sameInstance(result));
+        assertThat(ListMath.subtract(array1, array2, null), equalTo((ListDouble) new ArrayDouble(-4, -1, 1, 2.5)));
+        assertThat(ListMath.multiply(array1, array2, null), equalTo((ListDouble) new ArrayDouble(0, 2, 2, 1.5)));
+        assertThat(ListMath.divide(array1, array2, null), equalTo((ListDouble) new ArrayDouble(0, 0.5, 2, 6)));
+        assertThat(ListMath.add(array1, 1.5, null), equalTo((ListDouble) new ArrayDouble(1.5, 2.5, 3.5, 4.5)));
+        assertThat(ListMath.rescale(array1, 2, 1, null), equalTo((ListDouble) new ArrayDouble(1, 3, 5, 7)));
+    }
+    
+    @Test
+    public void eager2() {
+        // Float arrays, mixed types and views must match the lazy operations
+        ListNumber[] lists1 = new ListNumber[] {new ArrayFloat(0, 1, 2, 3), new ArrayInt(0, 1, 2, 3),
+            ListNumbers.linearList(0, 1, 4), new ArrayDouble(0, 1, 2, 3)};
+        ListNumber[] lists2 = new ListNumber[] {new ArrayFloat(4, 2, 1, 0.5f), new ArrayDouble(4, 2, 1, 0.5)};
+        for (ListNumber data1 : lists1) {
+            for (ListNumber data2 : lists2) {
+                assertThat(ListMath.add(data1, data2, null), equalTo(ListMath.add(data1, data2)));
+                assertThat(ListMath.subtract(data1, data2, null), equalTo(ListMath.subtract(data1, data2)));
+                assertThat(ListMath.multiply(data1, data2, null), equalTo(ListMath.multiply(data1, data2)));
+                assertThat(ListMath.divide(data1, data2, null), equalTo(ListMath.divide(data1, data2)));
+            }
+            assertThat(ListMath.add(data1, 0.5, null), equalTo(ListMath.add(data1, 0.5)));
+            assertThat(ListMath.rescale(data1, 3, 0.5, new double[4]), equalTo(ListMath.rescale(data1, 3, 0.5)));
+        }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void eager3() {
+        ListMath.add(new ArrayDouble(0, 1, 2), new ArrayDouble(0, 1, 2), new double[2]);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void eager4() {
+        ListMath.multiply(new ArrayDouble(0, 1, 2), new ArrayDouble(0, 1), null);
+    }
+    
+    @Test
+    public void eager5() {
+        // Computing in place, in the array backing either list
+        double[] result = new double[] {10, 20, 30};
+        ListMath.add(new ArrayInt(1, 2, 3), new ArrayDouble(result), result);
+        assertThat(result, equalTo(new double[] {11, 22, 33}));
+        ListMath.subtract(new ArrayDouble(result), new ArrayFloat(1, 2, 3), result);
+        assertThat(result, equalTo(new double[] {10, 20, 30}));
+        ListMath.multiply(new ArrayDouble(1, 2, 3), new ArrayDouble(result), result);
+        assertThat(result, equalTo(new double[] {10, 40, 90}));
+        ListMath.divide(new ArrayDouble(result), new ArrayDouble(result), result);
+        assertThat(result, equalTo(new double[] {1, 1, 1}));
+    }
+    
+    @Test
+    public void materialize1() {
+        ListDouble view = ListMath.rescale(new ArrayInt(0, 1, 2, 3), 2, 1);
+        ArrayDouble array = ListMath.materialize(view);
+        assertThat(array, equalTo((ListDouble) new ArrayDouble(1, 3, 5, 7)));
+        double[] result = new double[4];
+        assertThat(CollectionNumbers.wrappedDoubleArray(ListMath.materialize(view, result)), sameInstance(result));
+        assertThat(result, equalTo(new double[] {1, 3, 5, 7}));
+    }
+    
+    @Test
+    public void expression1() {
+        ListNumber data1 = new ArrayDouble(0, 1, 2, 3);
+        ListNumber data2 = new ArrayFloat(4, 2, 1, 0.5f);
+        ListNumber data3 = ListNumbers.linearList(1, 1, 4);
+        ListDouble lazy = ListMath.rescale(ListMath.add(ListMath.multiply(data1, data2), data3), 2, 1);
+        ArrayDouble fused = ListMath.expression(data1).multiply(data2).add(data3).rescale(2, 1).evaluate();
+        assertThat(fused, equalTo(lazy));
+        double[] result = new double[4];
+        fused = ListMath.expression(data1).subtract(data3).divide(data2).add(1.0).multiply(2.0).evaluate(result);
+        assertThat(CollectionNumbers.wrappedDoubleArray(fused), sameInstance(result));
+        assertThat(fused, equalTo(ListMath.rescale(ListMath.divide(ListMath.subtract(data1, data3), data2), 2, 2)));
+    }
+    
+    @Test
+    public void expression2() {
+        // Larger than a block, with operands not backed by arrays
+        int size = 2500;
+        ListNumber data1 = ListNumbers.linearList(1, 0.5, size);
+        ListNumber data2 = ListMath.add(ListNumbers.linearList(0, 1, size), 3.0);
+        ListExpression expression = ListMath.expression(data1).multiply(data2).pow(2).inverseRescale(1, 0.5);
+        ListDouble lazy = ListMath.inverseRescale(ListMath.pow(ListMath.multiply(data1, data2), 2), 1, 0.5);
+        assertThat(expression.size(), equalTo(size));
+        assertThat(expression.evaluate(), equalTo(lazy));
+        // Evaluating again gives the same result
+        assertThat(expression.evaluate(new double[size]), equalTo(lazy));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void expression3() {
+        ListMath.expression(new ArrayDouble(0, 1, 2)).add(new ArrayDouble(0, 1));
+    }
+    
+    @Test
+    public void expression4() {
+        // The result array is one of the operands
+        double[] result = new double[] {10, 20, 30};
+        ListMath.expression(new ArrayDouble(1, 2, 3)).add(new ArrayDouble(result)).evaluate(result);
+        assertThat(result, equalTo(new double[] {11, 22, 33}));
+        ListMath.expression(new ArrayDouble(result)).multiply(new ArrayDouble(result)).evaluate(result);
+        assertThat(result, equalTo(new double[] {121, 484, 1089}));
+        
+        // Larger than a block, with the operand read through a view
+        int size = 2500;
+        result = new double[size];
+        ListMath.materialize(ListNumbers.linearList(0, 1, size), result);
+        ListNumber operand = ListMath.rescale(new ArrayDouble(result), 2, 0);
+        ListMath.expression(ListNumbers.linearList(0, 1, size)).add(operand).evaluate(result);
+        assertThat(new ArrayDouble(result), equalTo(ListMath.rescale(ListNumbers.linearList(0, 1, size), 3, 0)));
+    }
+    
+    @Test
+    public void dft2() {
+        ListDouble x = new ArrayDouble(0, 1.0, 0, -1.0, 0, 1, 0, -1);
+        ListDouble y = new ArrayDouble(0, 0, 0, 0, 0, 0, 0, 0);
+        List<ListNumber> res = ListMath.dft(x, y);
+        double[] expectedY = new double[] {0, 0, -0.5, 0, 0, 0, 0.5, 0};
+        for (int i = 0; i < 8; i++) {
+            assertEquals(0.0, res.get(0).getDouble(i), 1e-12);
+            assertEquals(expectedY[i], res.get(1).getDouble(i), 1e-12);
+        }
+        assertThat(ListMath.dft(new ArrayDouble(), new ArrayDouble()).get(0).size(), equalTo(0));
+    }
+    
+    @Test
+    public void convolve1() {
+        ListNumber data = new ArrayDouble(1, 2, 3);
+        ListNumber kernel = new ArrayInt(0, 1, 2);
+        double[] expected = new double[] {0, 1, 4, 7, 6};
+        assertThat(ListMath.convolve(data, kernel), equalTo((ListDouble) new ArrayDouble(expected)));
+        double[] result = new double[] {9, 9, 9, 9, 9};
+        ListMath.convolveDirect(data, kernel, result);
+        assertThat(result, equalTo(expected));
+        ListMath.convolveFft(data, kernel, result);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(expected[i], result[i], 1e-12);
+        }
+        assertThat(ListMath.convolve(data, new ArrayDouble()).size(), equalTo(0));
+    }
+    
+    @Test
+    public void convolve2() {
+        // Direct and FFT convolution must agree, for both orders of the arguments
+        java.util.Random rand = new java.util.Random(1);
+        int[][] sizes = new int[][] {{1, 1}, {100, 7}, {7, 100}, {1000, 257}, {4096, 1}};
+        for (int[] size : sizes) {
+            double[] data = new double[size[0]];
+            double[] kernel = new double[size[1]];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = rand.nextGaussian();
+            }
+            for (int i = 0; i < kernel.length; i++) {
+                kernel[i] = rand.nextGaussian();
+            }
+            double[] direct = new double[data.length + kernel.length - 1];
+            double[] fft = new double[direct.length];
+            ListMath.convolveDirect(new ArrayDouble(data), new ArrayDouble(kernel), direct);
+            ListMath.convolveFft(ListMath.rescale(new ArrayDouble(data), 1, 0), new ArrayDouble(kernel), fft);
+            for (int i = 0; i < direct.length; i++) {
+                assertEquals(direct[i], fft[i], 1e-9);
+            }
+            assertThat(ListMath.convolve(new ArrayDouble(data), new ArrayDouble(kernel), direct).size(), equalTo(direct.length));
+        }
+    }
+    
+    @Test
+    public void convolve3() {
+        assertThat(ListMath.isDirectConvolutionFaster(100000, 5), equalTo(true));
+        assertThat(ListMath.isDirectConvolutionFaster(100000, 10000), equalTo(false));
+    }
 }
@@ -4,6 +4,16 @@
  */
 package org.epics.util.array;
 
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import static org.hamcrest.Matchers.*;
@@ -24,6 +34,24 @@ public class ListNumbersTest {
         assertThat(sortedView.getIndexes(), equalTo((ListInt) new ArrayInt(5,2,4,1,3,0)));
     }
     
+    @Test
+    public void parallelSortedView1() {
+        // Forced parallel sort gives the same view as the stable sort
+        Random rand = new Random(1);
+        int size = 200000;
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = rand.nextInt(1000);
+        }
+        values[size / 3] = Double.NaN;
+        SortedListView stable = ListNumbers.sortedView(new ArrayDouble(values), true);
+        SortedListView parallel = ListNumbers.parallelSortedView(new ArrayDouble(values), 0);
+        assertThat(parallel, equalTo((ListNumber) stable));
+        assertThat(parallel.getIndexes(), equalTo(stable.getIndexes()));
+        assertThat(ListNumbers.parallelSortedView(new ArrayDouble(5,3,1,4,2,0)).getIndexes(), equalTo((ListInt) new ArrayInt(5,2,4,1,3,0)));
+        assertThat(ListNumbers.parallelSortedView(new ArrayDouble(), 0).size(), equalTo(0));
+    }
+    
     @Test
     public void sortedView2() {
         ArrayDouble values = new ArrayDouble(5,3,1,4,2,0);
@@ -50,6 +78,49 @@ public class ListNumbersTest {
         assertThat(sortedView.getIndexes(), equalTo((ListInt) new ArrayInt(0,1,2,4,3,5)));
     }
     
+    @Test
+    public void sortedView5() {
+        // Descending and constant inputs used to take O(n^2) and overflow the stack
+        int size = 100000;
+        ListNumber descending = ListNumbers.linearList(size, -1, size);
+        SortedListView sortedView = ListNumbers.sortedView(descending);
+        assertThat(sortedView, equalTo(ListNumbers.linearList(1, 1, size)));
+        assertThat(sortedView.getIndexes().getInt(0), equalTo(size - 1));
+        double[] constant = new double[size];
+        Arrays.fill(constant, 1.0);
+        constant[0] = 2.0;
+        sortedView = ListNumbers.sortedView(new ArrayDouble(constant));
+        assertThat(sortedView.getDouble(size - 2), equalTo(1.0));
+        assertThat(sortedView.getDouble(size - 1), equalTo(2.0));
+        assertThat(sortedView.getIndexes().getInt(size - 1), equalTo(0));
+    }
+    
+    @Test
+    public void sortedView6() {
+        // Both sorts must give the same values; the stable one also the same indexes as Arrays.sort
+        Random rand = new Random(1);
+        for (int size : new int[] {2, 17, 100, 5000}) {
+            double[] values = new double[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = rand.nextInt(size / 2 + 1);
+            }
+            values[size / 2] = Double.NaN;
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            SortedListView unstable = ListNumbers.sortedView(new ArrayDouble(values));
+            SortedListView stable = ListNumbers.sortedView(new ArrayDouble(values), true);
+            assertThat(CollectionNumbers.doubleArrayCopyOf(unstable), equalTo(sorted));
+            assertThat(CollectionNumbers.doubleArrayCopyOf(stable), equalTo(sorted));
+            for (int i = 0; i < size; i++) {
+                assertThat(values[unstable.getIndexes().getInt(i)], equalTo(sorted[i]));
+                assertThat(values[stable.getIndexes().getInt(i)], equalTo(sorted[i]));
+                if (i > 0 && sorted[i] == sorted[i - 1]) {
+                    assertThat(stable.getIndexes().getInt(i), greaterThan(stable.getIndexes().getInt(i - 1)));
+                }
+            }
+        }
+    }
+    
     @Test
     public void binarySearchValueOrLower1() {
         ListNumber values = new ArrayDouble(1,2,3,3,4,5,5,6,7,8,10);
@@ -88,6 +159,70 @@ public class ListNumbersTest {
         assertThat(ListNumbers.binarySearchValueOrHigher(values, 2), equalTo(9));
    }
     
+    @Test
+    public void binarySearchValueOrLower3() {
+        // Linear lists, near-linear arrays and batch search must return
+        // the first (lower) or last (higher) equal value, or else the
+        // closest value below (lower) or above (higher)
+        Random rand = new Random(1);
+        int size = 1000;
+        double[] timestamps = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = 1e9 + i * 0.1 + rand.nextDouble() * 0.01;
+        }
+        double[] duplicates = new double[size];
+        for (int i = 0; i < size; i++) {
+            duplicates[i] = rand.nextInt(100);
+        }
+        Arrays.sort(duplicates);
+        ListNumber[] lists = new ListNumber[] {ListNumbers.linearList(-5, 0.3, size),
+            ListNumbers.linearListFromRange(-3.3, 7.7, size), new ArrayDouble(timestamps), new ArrayDouble(duplicates)};
+        for (ListNumber values : lists) {
+            double[] queries = new double[300];
+            for (int i = 0; i < queries.length; i++) {
+                double value = values.getDouble(rand.nextInt(size));
+                queries[i] = i % 3 == 0 ? value : i % 3 == 1 ? Math.nextUp(value) : Math.nextAfter(value, Double.NEGATIVE_INFINITY);
+            }
+            queries[0] = values.getDouble(0) - 1;
+            queries[1] = values.getDouble(size - 1) + 1;
+            Arrays.sort(queries);
+            ListInt lower = ListNumbers.binarySearchValueOrLower(values, new ArrayDouble(queries), null);
+            ListInt higher = ListNumbers.binarySearchValueOrHigher(values, new ArrayDouble(queries), new int[queries.length]);
+            for (int i = 0; i < queries.length; i++) {
+                double value = queries[i];
+                int expectedLower;
+                int expectedHigher;
+                if (value <= values.getDouble(0)) {
+                    expectedLower = 0;
+                    expectedHigher = 0;
+                } else if (value >= values.getDouble(size - 1)) {
+                    expectedLower = size - 1;
+                    expectedHigher = size - 1;
+                } else {
+                    int firstNotBelow = 0;
+                    while (values.getDouble(firstNotBelow) < value) {
+                        firstNotBelow++;
+                    }
+                    int firstAbove = firstNotBelow;
+                    while (values.getDouble(firstAbove) == value) {
+                        firstAbove++;
+                    }
+                    expectedLower = firstAbove > firstNotBelow ? firstNotBelow : firstNotBelow - 1;
+                    expectedHigher = firstAbove > firstNotBelow ? firstAbove - 1 : firstAbove;
+                }
+                assertThat(ListNumbers.binarySearchValueOrLower(values, value), equalTo(expectedLower));
+                assertThat(ListNumbers.binarySearchValueOrHigher(values, value), equalTo(expectedHigher));
+                assertThat(lower.getInt(i), equalTo(expectedLower));
+                assertThat(higher.getInt(i), equalTo(expectedHigher));
+            }
+        }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void binarySearchValueOrLower4() {
+        ListNumbers.binarySearchValueOrLower(new ArrayDouble(1, 2, 3), new ArrayDouble(2, 1), null);
+    }
+    
     @Test
     public void linearRange1() throws Exception {
         ListNumber list = ListNumbers.linearListFromRange(0, 1000, 101);
@@ -273,4 +408,136 @@ public class ListNumbersTest {
         assertThat(values, equalTo(new ArrayByte(new byte[] {5,3,1,4,2,0})));
         assertThat(sortedView, equalTo((ListNumber) new ArrayByte(new byte[] {5,4,3,2,1,0})));
     }
+    
+    @Test
+    public void toListNumberBuffer1() {
+        DoubleBuffer buffer = ByteBuffer.allocateDirect(5 * 8).asDoubleBuffer();
+        buffer.put(new double[] {0, 1, 2, 3, 4});
+        buffer.position(1);
+        ListNumber list = ListNumbers.toListNumber(buffer);
+        assertThat(list, instanceOf(ListDouble.class));
+        assertThat(list, equalTo((ListNumber) new ArrayDouble(1, 2, 3, 4)));
+        
+        // Later changes to the position do not affect the list
+        buffer.position(3);
+        assertThat(list.size(), equalTo(4));
+        
+        double[] dst = new double[3];
+        list.getDoubles(1, dst, 1, 2);
+        assertThat(dst, equalTo(new double[] {0, 2, 3}));
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void toListNumberBuffer2() {
+        ListNumber list = ListNumbers.toListNumber(IntBuffer.wrap(new int[] {0, 1, 2}));
+        list.setInt(0, 5);
+    }
+    
+    @Test
+    public void toListNumberBuffer3() {
+        int[] array = new int[] {0, 1, 2};
+        ListNumber list = ListNumbers.toListNumber(IntBuffer.wrap(array), false);
+        list.setDouble(0, 5);
+        list.fill(1, 3, 7);
+        assertThat(array, equalTo(new int[] {5, 7, 7}));
+        list.setDoubles(1, new double[] {8, 9}, 0, 2);
+        assertThat(array, equalTo(new int[] {5, 8, 9}));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void toListNumberBuffer4() {
+        ListNumbers.toListNumber(ShortBuffer.wrap(new short[3]).asReadOnlyBuffer(), false);
+    }
+    
+    @Test
+    public void toListNumberBuffer5() {
+        ByteBuffer bytes = ByteBuffer.allocate(2 + 3 * 4);
+        bytes.position(2);
+        bytes.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(new float[] {1.5f, 2.5f, 3.5f});
+        bytes.order(ByteOrder.BIG_ENDIAN);
+        
+        ListNumber list = ListNumbers.toListNumber(bytes, float.class, ByteOrder.LITTLE_ENDIAN, true);
+        assertThat(list, equalTo((ListNumber) new ArrayFloat(1.5f, 2.5f, 3.5f)));
+        assertThat(bytes.order(), equalTo(ByteOrder.BIG_ENDIAN));
+        
+        list = ListNumbers.toListNumber(bytes, short.class, ByteOrder.BIG_ENDIAN, true);
+        assertThat(list.size(), equalTo(6));
+        list = ListNumbers.toListNumber(bytes, byte.class, ByteOrder.BIG_ENDIAN, true);
+        assertThat(list.size(), equalTo(12));
+    }
+    
+    @Test
+    public void toListNumberBuffer6() {
+        ByteBuffer bytes = ByteBuffer.allocateDirect(16);
+        ListNumber list = ListNumbers.toListNumber(bytes, long.class, ByteOrder.LITTLE_ENDIAN, false);
+        list.setLong(1, 258);
+        assertThat(bytes.get(8), equalTo((byte) 2));
+        assertThat(bytes.get(9), equalTo((byte) 1));
+        long[] dst = new long[2];
+        list.getLongs(0, dst, 0, 2);
+        assertThat(dst, equalTo(new long[] {0, 258}));
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void toListNumberBuffer7() {
+        ListNumber list = ListNumbers.toListNumber(DoubleBuffer.allocate(4));
+        list.getDoubles(2, new double[4], 0, 3);
+    }
+    
+    @Test
+    public void mappedListNumber1() throws Exception {
+        File file = File.createTempFile("mapped", ".bin");
+        file.deleteOnExit();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocate(4 + 10 * 8).order(ByteOrder.LITTLE_ENDIAN);
+            bytes.putInt(0);
+            for (int i = 0; i < 10; i++) {
+                bytes.putDouble(i);
+            }
+            bytes.flip();
+            channel.write(bytes);
+            
+            ListNumber list = ListNumbers.mappedListNumber(channel, 4, 10, double.class, ByteOrder.LITTLE_ENDIAN, false);
+            assertThat(list, equalTo((ListNumber) new ArrayDouble(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)));
+            list.setDouble(2, 12);
+        }
+        ListNumber list = ListNumbers.mappedListNumber(file.toPath(), int.class, ByteOrder.LITTLE_ENDIAN);
+        assertThat(list.size(), equalTo(21));
+        list = ListNumbers.mappedListNumber(file.toPath(), byte.class, ByteOrder.LITTLE_ENDIAN);
+        assertThat(list.size(), equalTo(84));
+    }
+    
+    @Test
+    public void mappedListNumber2() throws Exception {
+        // Use small segments to test the mapping in multiple segments
+        File file = File.createTempFile("mapped", ".bin");
+        file.deleteOnExit();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocate(4 * 11);
+            for (int i = 0; i < 11; i++) {
+                bytes.putInt(i);
+            }
+            bytes.flip();
+            channel.write(bytes);
+
+            ListNumber list = ListNumbers.mappedListNumber(channel, 4, 10, int.class, ByteOrder.BIG_ENDIAN, true, 16);
+            assertThat(list, instanceOf(SegmentedList.Int.class));
+            assertThat(list, equalTo((ListNumber) new ArrayInt(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)));
+            int[] ints = new int[7];
+            list.getInts(2, ints, 1, 6);
+            assertThat(ints, equalTo(new int[] {0, 3, 4, 5, 6, 7, 8}));
+            double[] doubles = new double[10];
+            list.getDoubles(0, doubles, 0, 10);
+            assertThat(doubles, equalTo(new double[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}));
+        }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void mappedListNumber3() throws Exception {
+        File file = File.createTempFile("mapped", ".bin");
+        file.deleteOnExit();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ListNumbers.mappedListNumber(channel, 0, 10, double.class, ByteOrder.LITTLE_ENDIAN, true);
+        }
+    }
 }
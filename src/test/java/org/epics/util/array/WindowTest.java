@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class WindowTest {
+    
+    public WindowTest() {
+    }
+
+    @Test
+    public void coefficients1() {
+        ListDouble hann = Window.HANN.coefficients(5);
+        double[] expected = new double[] {0, 0.5, 1, 0.5, 0};
+        for (int i = 0; i < 5; i++) {
+            assertEquals(expected[i], hann.getDouble(i), 1e-12);
+        }
+        assertThat(Window.HANN.coefficients(5), sameInstance(hann));
+        assertEquals(0.08, Window.HAMMING.coefficients(5).getDouble(0), 1e-12);
+        assertEquals(1.0, Window.HAMMING.coefficients(5).getDouble(2), 1e-12);
+        assertEquals(0.0, Window.BLACKMAN.coefficients(5).getDouble(4), 1e-12);
+        assertEquals(1.0, Window.BLACKMAN.coefficients(5).getDouble(2), 1e-12);
+        assertThat(Window.RECTANGULAR.coefficients(3), equalTo((ListDouble) new ArrayDouble(1, 1, 1)));
+        assertThat(Window.BLACKMAN.coefficients(1), equalTo((ListDouble) new ArrayDouble(1)));
+        assertThat(Window.HANN.coefficients(0).size(), equalTo(0));
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void coefficients2() {
+        Window.HANN.coefficients(4).setDouble(0, 1.0);
+    }
+    
+    @Test
+    public void coefficients3() {
+        // Only the most recently used sizes are kept
+        ListDouble hann = Window.HANN.coefficients(1000);
+        for (int size = 2000; size < 2000 + Window.MAX_CACHED_SIZES; size++) {
+            Window.HANN.coefficients(size);
+        }
+        ListDouble recomputed = Window.HANN.coefficients(1000);
+        assertThat(recomputed, not(sameInstance(hann)));
+        assertThat(recomputed, equalTo(hann));
+    }
+
+    @Test
+    public void apply1() {
+        ListNumber data = new ArrayInt(2, 2, 2, 2, 2);
+        ListDouble expected = new ArrayDouble(0, 1, 2, 1, 0);
+        ListDouble view = Window.HANN.apply(data);
+        ArrayDouble eager = Window.HANN.apply(data, new double[5]);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(expected.getDouble(i), view.getDouble(i), 1e-12);
+            assertEquals(expected.getDouble(i), eager.getDouble(i), 1e-12);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import org.epics.util.array.ArrayByte;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayFloat;
+import org.epics.util.array.ArrayInt;
+import org.epics.util.array.ArrayLong;
+import org.epics.util.array.ArrayShort;
+import org.epics.util.array.CircularBufferDouble;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.ListNumbers;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class BinaryCodecTest {
+    
+    public BinaryCodecTest() {
+    }
+    
+    @Test
+    public void encode1() {
+        ByteBuffer buffer = BinaryCodec.encode(new ArrayInt(1, 258));
+        assertThat(buffer.remaining(), equalTo(16));
+        byte[] bytes = new byte[16];
+        buffer.get(bytes);
+        assertThat(bytes, equalTo(new byte[] {3, 0, 1, 0, 2, 0, 0, 0, 1, 0, 0, 0, 2, 1, 0, 0}));
+    }
+    
+    @Test
+    public void encode2() {
+        // Too large for a buffer: 8 * size overflows an int to 8
+        ListDouble data = new ListDouble() {
+
+            @Override
+            public double getDouble(int index) {
+                return 0;
+            }
+
+            @Override
+            public int size() {
+                return (1 << 29) + 1;
+            }
+        };
+        try {
+            BinaryCodec.encodedSize(data);
+            fail("Size should not fit in an int");
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        try {
+            BinaryCodec.encode(data, buffer);
+            fail("Data should not fit in the buffer");
+        } catch (BufferOverflowException ex) {
+            assertThat(buffer.position(), equalTo(0));
+        }
+    }
+    
+    @Test
+    public void encodeDecode1() {
+        ListNumber[] lists = new ListNumber[] {new ArrayByte(new byte[] {1, -2, 3}),
+            new ArrayShort(new short[] {1, -2, 3}), new ArrayInt(1, -2, 3),
+            new ArrayLong(1, -2, 3), new ArrayFloat(1, -2, 3), new ArrayDouble(1, -2, 3),
+            new ArrayDouble()};
+        for (ListNumber list : lists) {
+            ByteBuffer buffer = BinaryCodec.encode(list);
+            assertThat(buffer.remaining(), equalTo(BinaryCodec.encodedSize(list)));
+            ListNumber decoded = BinaryCodec.decode(buffer);
+            assertThat(decoded, equalTo(list));
+            assertThat(decoded.getClass().getSuperclass(), equalTo((Object) list.getClass().getSuperclass()));
+            assertThat(buffer.hasRemaining(), equalTo(false));
+        }
+    }
+    
+    @Test
+    public void encodeDecode2() {
+        // Multiple lists in the same buffer, from lists not backed by arrays
+        CircularBufferDouble circular = new CircularBufferDouble(3000);
+        for (int i = 0; i < 3000; i++) {
+            circular.addDouble(i);
+        }
+        ListNumber linear = ListNumbers.linearList(0, 0.5, 10);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BinaryCodec.encodedSize(circular) + BinaryCodec.encodedSize(linear) + 3);
+        buffer.put((byte) 5);
+        BinaryCodec.encode(circular, buffer);
+        BinaryCodec.encode(linear, buffer);
+        buffer.flip();
+        buffer.get();
+        assertThat(BinaryCodec.decode(buffer), equalTo((ListNumber) circular));
+        assertThat(BinaryCodec.decode(buffer), equalTo(linear));
+    }
+    
+    @Test
+    public void decode1() {
+        // Big endian payload
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] {3, 1, 1, 0, 2, 0, 0, 0, 0, 0, 0, 1, 0, 0, 1, 2});
+        assertThat(BinaryCodec.decode(buffer), equalTo((ListNumber) new ArrayInt(1, 258)));
+    }
+    
+    @Test
+    public void decode2() {
+        ByteBuffer buffer = BinaryCodec.encode(new ArrayDouble(1, 2, 3));
+        ListNumber list = BinaryCodec.decode(buffer.duplicate(), false);
+        list.setDouble(1, 5);
+        assertThat(BinaryCodec.decode(buffer), equalTo((ListNumber) new ArrayDouble(1, 5, 3)));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void decode3() {
+        ByteBuffer buffer = BinaryCodec.encode(new ArrayDouble(1, 2, 3));
+        buffer.limit(buffer.limit() - 1);
+        BinaryCodec.decode(buffer);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void decode4() {
+        BinaryCodec.decode(ByteBuffer.wrap(new byte[] {9, 0, 1, 0, 0, 0, 0, 0}));
+    }
+    
+    @Test
+    public void encodeDecodeChannel1() throws Exception {
+        double[] values = new double[5000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 0.5;
+        }
+        ListDouble list = new ArrayDouble(values);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCodec.encode(list, Channels.newChannel(out));
+        BinaryCodec.encode(new ArrayInt(), Channels.newChannel(out));
+        byte[] bytes = out.toByteArray();
+        assertThat(bytes.length, equalTo(BinaryCodec.encodedSize(list) + BinaryCodec.HEADER_SIZE));
+        assertThat(BinaryCodec.encode(list).array(), equalTo(Arrays.copyOf(bytes, BinaryCodec.encodedSize(list))));
+        
+        ReadableByteChannel in = Channels.newChannel(new ByteArrayInputStream(bytes));
+        assertThat(BinaryCodec.decode(in), equalTo((ListNumber) list));
+        assertThat(BinaryCodec.decode(in), equalTo((ListNumber) new ArrayInt()));
+    }
+    
+    @Test(expected=EOFException.class)
+    public void decodeChannel1() throws Exception {
+        byte[] bytes = BinaryCodec.encode(new ArrayInt(1, 2, 3)).array();
+        BinaryCodec.decode(Channels.newChannel(new ByteArrayInputStream(bytes, 0, bytes.length - 2)));
+    }
+}
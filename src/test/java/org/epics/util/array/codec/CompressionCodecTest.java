@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.array.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.epics.util.array.ArrayByte;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayFloat;
+import org.epics.util.array.ArrayInt;
+import org.epics.util.array.ArrayLong;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListFloat;
+import org.epics.util.array.ListInt;
+import org.epics.util.array.ListLong;
+import org.epics.util.array.ListNumber;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class CompressionCodecTest {
+    
+    public CompressionCodecTest() {
+    }
+    
+    @Test
+    public void encodeDecodeLong1() {
+        long[] values = new long[] {0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE, 5, 5, 5, 1000000, -3};
+        ListLong list = new ArrayLong(values);
+        ListNumber decoded = CompressionCodec.decode(CompressionCodec.encode(list, 3));
+        assertThat(decoded, instanceOf(ListLong.class));
+        assertThat(decoded, equalTo((ListNumber) list));
+    }
+    
+    @Test
+    public void encodeDecodeInt1() {
+        int[] values = new int[2500];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 100000 + i / 3;
+        }
+        values[7] = Integer.MIN_VALUE;
+        values[8] = Integer.MAX_VALUE;
+        ListInt list = new ArrayInt(values);
+        ByteBuffer encoded = CompressionCodec.encode(list);
+        // Mostly 1 byte per value
+        assertThat(encoded.remaining(), lessThan(2600 + 40));
+        ListNumber decoded = CompressionCodec.decode(encoded);
+        assertThat(decoded, instanceOf(ListInt.class));
+        assertThat(decoded, equalTo((ListNumber) list));
+        int[] dst = new int[1500];
+        ((ListInt) decoded).getInts(1000, dst, 0, 1500);
+        assertThat(dst[0], equalTo(values[1000]));
+        assertThat(dst[1499], equalTo(values[2499]));
+    }
+    
+    @Test
+    public void encodeDecodeDouble1() {
+        double[] values = new double[3000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.round(Math.sin(i / 100.0) * 100) / 10.0;
+        }
+        values[10] = Double.NaN;
+        values[11] = Double.POSITIVE_INFINITY;
+        values[12] = -0.0;
+        values[13] = Double.MIN_VALUE;
+        ListDouble list = new ArrayDouble(values);
+        ByteBuffer encoded = CompressionCodec.encode(list);
+        assertThat(encoded.remaining(), lessThan(3000 * 8 * 3 / 4));
+        ListNumber decoded = CompressionCodec.decode(encoded);
+        assertThat(decoded, instanceOf(ListDouble.class));
+        for (int i = 0; i < values.length; i++) {
+            assertThat(Double.doubleToRawLongBits(decoded.getDouble(i)), equalTo(Double.doubleToRawLongBits(values[i])));
+        }
+        double[] dst = new double[2000];
+        decoded.getDoubles(500, dst, 0, 2000);
+        assertThat(dst[1999], equalTo(values[2499]));
+    }
+    
+    @Test
+    public void encodeDecodeDouble2() {
+        // Random values do not compress, but must still decode
+        Random rand = new Random(1);
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rand.nextGaussian() * Math.pow(10, rand.nextInt(40) - 20);
+        }
+        ListDouble list = new ArrayDouble(values);
+        assertThat(CompressionCodec.decode(CompressionCodec.encode(list, 100)), equalTo((ListNumber) list));
+    }
+    
+    @Test
+    public void encodeDecodeFloat1() {
+        float[] values = new float[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1.5f + i % 10;
+        }
+        ListFloat list = new ArrayFloat(values);
+        ListNumber decoded = CompressionCodec.decode(CompressionCodec.encode(list, 64));
+        assertThat(decoded, instanceOf(ListFloat.class));
+        assertThat(decoded, equalTo((ListNumber) list));
+    }
+    
+    @Test
+    public void encodeDecodeEmpty1() {
+        ListNumber decoded = CompressionCodec.decode(CompressionCodec.encode(new ArrayDouble()));
+        assertThat(decoded.size(), equalTo(0));
+    }
+    
+    @Test
+    public void encodeDecodeMultiple1() {
+        ListLong list1 = new ArrayLong(1, 2, 3);
+        ListDouble list2 = new ArrayDouble(0.5, 0.25);
+        ByteBuffer buffer = ByteBuffer.allocate(CompressionCodec.maxEncodedSize(list1, 2)
+                + CompressionCodec.maxEncodedSize(list2, 2));
+        CompressionCodec.encode(list1, 2, buffer);
+        CompressionCodec.encode(list2, 2, buffer);
+        buffer.flip();
+        assertThat(CompressionCodec.decode(buffer), equalTo((ListNumber) list1));
+        assertThat(CompressionCodec.decode(buffer), equalTo((ListNumber) list2));
+        assertThat(buffer.hasRemaining(), equalTo(false));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void encode1() {
+        CompressionCodec.encode(new ArrayByte(new byte[] {1, 2}));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void decode1() {
+        ByteBuffer buffer = CompressionCodec.encode(new ArrayInt(1, 2, 3));
+        buffer.limit(buffer.limit() - 1);
+        CompressionCodec.decode(buffer);
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void decode2() {
+        CompressionCodec.decode(CompressionCodec.encode(new ArrayInt(1, 2, 3))).getDouble(3);
+    }
+}
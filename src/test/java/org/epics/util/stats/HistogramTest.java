@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayInt;
+import org.epics.util.array.ArrayLong;
+import org.epics.util.array.CircularBufferDouble;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListLong;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class HistogramTest {
+    
+    @Test
+    public void linear1() {
+        Histogram histogram = Histogram.linear(0, 10, 5);
+        histogram.add(new ArrayDouble(-1, 0, 1.99, 2, 9.99, 10, 10.5, Double.NaN, 5));
+        assertThat(histogram.getNBins(), equalTo(5));
+        assertThat(histogram.getBinEdges(), equalTo((ListDouble) new ArrayDouble(0, 2, 4, 6, 8, 10)));
+        assertThat(histogram.getCounts(), equalTo((ListLong) new ArrayLong(2, 1, 1, 0, 2)));
+        assertThat(histogram.getUnderflow(), equalTo(1L));
+        assertThat(histogram.getOverflow(), equalTo(1L));
+        assertThat(histogram.getTotalCount(), equalTo(8L));
+        assertThat(histogram.binOf(10), equalTo(4));
+        assertThat(histogram.binOf(-0.1), equalTo(-1));
+        histogram.clear();
+        assertThat(histogram.getTotalCount(), equalTo(0L));
+    }
+    
+    @Test
+    public void linear2() {
+        // Each edge belongs to the bin it starts, despite rounding
+        for (int nBins = 1; nBins < 200; nBins++) {
+            Histogram histogram = Histogram.linear(0, 1, nBins);
+            ListDouble edges = histogram.getBinEdges();
+            for (int i = 0; i < nBins; i++) {
+                assertThat(histogram.binOf(edges.getDouble(i)), equalTo(i));
+                assertThat(histogram.binOf(Math.nextAfter(edges.getDouble(i + 1), 0)), equalTo(i));
+            }
+            assertThat(histogram.binOf(1), equalTo(nBins - 1));
+            histogram.add(edges);
+            long[] expected = new long[nBins];
+            Arrays.fill(expected, 1);
+            expected[nBins - 1] = 2;
+            assertThat(histogram.getCounts(), equalTo((ListLong) new ArrayLong(expected)));
+        }
+    }
+    
+    @Test
+    public void withEdges1() {
+        Histogram histogram = Histogram.withEdges(new ArrayDouble(0, 1, 10, 100));
+        histogram.add(new ArrayInt(-5, 0, 1, 5, 10, 99, 100, 101));
+        assertThat(histogram.getCounts(), equalTo((ListLong) new ArrayLong(1, 2, 3)));
+        assertThat(histogram.getUnderflow(), equalTo(1L));
+        assertThat(histogram.getOverflow(), equalTo(1L));
+        histogram.remove(new ArrayInt(5, 100), 0, 2);
+        assertThat(histogram.getCounts(), equalTo((ListLong) new ArrayLong(1, 1, 2)));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void withEdges2() {
+        Histogram.withEdges(new ArrayDouble(0, 1, 1, 2));
+    }
+    
+    @Test
+    public void adaptive1() {
+        Random rand = new Random(1);
+        double[] data = new double[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = rand.nextGaussian();
+        }
+        Histogram histogram = Histogram.adaptive(new ArrayDouble(data), 10);
+        histogram.add(new ArrayDouble(data));
+        assertThat(histogram.getNBins(), equalTo(10));
+        assertThat(histogram.getTotalCount(), equalTo(100000L));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(10000, histogram.getCount(i), 1);
+        }
+        // Equal values merge bins
+        assertThat(Histogram.adaptive(new ArrayInt(1, 1, 1, 1, 2), 4).getBinEdges(), equalTo((ListDouble) new ArrayDouble(1, 2)));
+        assertThat(Histogram.adaptive(new ArrayInt(3, 3), 4).getBinEdges(), equalTo((ListDouble) new ArrayDouble(2.5, 3.5)));
+    }
+    
+    @Test
+    public void parallelAdd1() {
+        Random rand = new Random(1);
+        double[] data = new double[1000000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = rand.nextGaussian();
+        }
+        Histogram serial = Histogram.linear(-3, 3, 60);
+        serial.add(new ArrayDouble(data));
+        Histogram parallel = serial.emptyCopy();
+        parallel.parallelAdd(new ArrayDouble(data), 0);
+        assertThat(parallel.getCounts(), equalTo(serial.getCounts()));
+        assertThat(parallel.getUnderflow(), equalTo(serial.getUnderflow()));
+        assertThat(parallel.getOverflow(), equalTo(serial.getOverflow()));
+    }
+    
+    @Test
+    public void rolling1() {
+        // Following the content of a circular buffer
+        Random rand = new Random(1);
+        CircularBufferDouble buffer = new CircularBufferDouble(100);
+        Histogram histogram = Histogram.linear(-3, 3, 6);
+        for (int i = 0; i < 1000; i++) {
+            if (buffer.size() == 100) {
+                histogram.remove(buffer.getDouble(0));
+            }
+            double value = rand.nextGaussian();
+            buffer.addDouble(value);
+            histogram.add(value);
+        }
+        Histogram reference = histogram.emptyCopy();
+        reference.add(buffer);
+        assertThat(histogram.getCounts(), equalTo(reference.getCounts()));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void merge1() {
+        Histogram.linear(0, 1, 10).merge(Histogram.linear(0, 1, 5));
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListMath;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class QuantileSketchTest {
+    
+    @Test
+    public void add1() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertThat(sketch.getMedian(), equalTo(Double.NaN));
+        sketch.add(new ArrayDouble(1, 2, 3, 4, 5, Double.NaN));
+        // Few values are all retained, so the result is exact
+        assertThat(sketch.getCount(), equalTo(5L));
+        assertThat(sketch.getMedian(), equalTo(3.0));
+        assertThat(sketch.getQuantiles(0, 0.2, 0.21, 1), equalTo((ListDouble) new ArrayDouble(1, 1, 2, 5)));
+        assertThat(sketch.getRank(2.5), equalTo(0.4));
+        assertThat(sketch.getRank(0), equalTo(0.0));
+        sketch.clear();
+        assertThat(sketch.getCount(), equalTo(0L));
+        assertThat(sketch.getMedian(), equalTo(Double.NaN));
+    }
+    
+    @Test
+    public void add2() {
+        // Whole and merged sketches must be within the expected rank error
+        Random rand = new Random(1);
+        int size = 1000000;
+        double[] data = new double[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = rand.nextGaussian();
+        }
+        QuantileSketch whole = new QuantileSketch();
+        whole.add(new ArrayDouble(data));
+        QuantileSketch merged = new QuantileSketch();
+        for (int i = 0; i < 4; i++) {
+            QuantileSketch part = new QuantileSketch();
+            part.add(ListMath.limit(new ArrayDouble(data), i * size / 4, (i + 1) * size / 4));
+            merged.merge(part);
+        }
+        assertThat(merged.getCount(), equalTo((long) size));
+        
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < 100; i++) {
+            double p = i / 100.0;
+            assertEquals(p, (double) Arrays.binarySearch(sorted, whole.getQuantile(p)) / size, 0.02);
+            assertEquals(p, (double) Arrays.binarySearch(sorted, merged.getQuantile(p)) / size, 0.02);
+            assertEquals(p, whole.getRank(sorted[i * size / 100]), 0.02);
+        }
+        assertThat(whole.getQuantile(0), equalTo(sorted[0]));
+        assertThat(merged.getQuantile(1), equalTo(sorted[size - 1]));
+    }
+    
+    @Test
+    public void merge1() {
+        // Merging with itself counts every value twice
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(new ArrayDouble(1, 2, 3, 4));
+        sketch.merge(sketch);
+        assertThat(sketch.getCount(), equalTo(8L));
+        assertThat(sketch.getRank(2), equalTo(0.5));
+        assertThat(sketch.getQuantile(0.75), equalTo(3.0));
+        
+        // Also with values at multiple levels
+        for (int i = 0; i < 10000; i++) {
+            sketch.add(i % 100);
+        }
+        sketch.merge(sketch);
+        assertThat(sketch.getCount(), equalTo(20016L));
+        assertEquals(49.5, sketch.getMedian(), 2.0);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void new1() {
+        new QuantileSketch(4);
+    }
+}
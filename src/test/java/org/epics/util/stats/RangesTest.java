@@ -220,4 +220,29 @@ public class RangesTest {
     public void isValid7() {
         assertThat(Ranges.isValid(null), equalTo(false));
     }
+    
+    @Test
+    public void minimum1() {
+        Range range = Ranges.range(-1.0, 2.0);
+        assertThat(range, instanceOf(RangeDouble.class));
+        assertThat(minimum(range), equalTo(-1.0));
+        assertThat(maximum(range), equalTo(2.0));
+        Range intRange = new Range() {
+
+            @Override
+            public Number getMinimum() {
+                return 3;
+            }
+
+            @Override
+            public Number getMaximum() {
+                return 5;
+            }
+        };
+        assertThat(minimum(intRange), equalTo(3.0));
+        assertThat(maximum(intRange), equalTo(5.0));
+        assertThat(contains(intRange, range), equalTo(false));
+        assertThat(sum(intRange, range).getMinimum(), equalTo((Number) (-1.0)));
+        assertThat(sum(intRange, range).getMaximum(), equalTo((Number) 5.0));
+    }
 }
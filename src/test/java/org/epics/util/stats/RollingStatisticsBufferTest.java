@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats;
+
+import java.util.Random;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ListDouble;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class RollingStatisticsBufferTest {
+    
+    @Test
+    public void addDouble1() {
+        RollingStatisticsBuffer buffer = new RollingStatisticsBuffer(3);
+        assertThat(buffer.getStatistics(), nullValue());
+        for (int i = 0; i < 5; i++) {
+            buffer.addDouble(i);
+        }
+        assertThat(buffer, equalTo((ListDouble) new ArrayDouble(2, 3, 4)));
+        Statistics stats = buffer.getStatistics();
+        assertThat(stats.getCount(), equalTo(3));
+        assertThat(stats.getMinimum(), equalTo((Number) 2.0));
+        assertThat(stats.getMaximum(), equalTo((Number) 4.0));
+        assertEquals(3.0, stats.getAverage(), 1e-15);
+        assertEquals(Math.sqrt(2.0 / 3.0), stats.getStdDev(), 1e-15);
+    }
+    
+    @Test
+    public void addDouble2() {
+        RollingStatisticsBuffer buffer = new RollingStatisticsBuffer(2);
+        buffer.addDouble(1);
+        buffer.addDouble(Double.NaN);
+        assertThat(buffer.getStatistics().getCount(), equalTo(1));
+        buffer.addDouble(Double.NaN);
+        assertThat(buffer.getStatistics(), nullValue());
+        buffer.addDouble(5);
+        assertThat(buffer.getStatistics().getCount(), equalTo(1));
+        assertThat(buffer.getStatistics().getMaximum(), equalTo((Number) 5.0));
+    }
+    
+    @Test
+    public void addDouble3() {
+        // Compare with the full calculation on random data, with NaNs
+        // and with a large offset
+        RollingStatisticsBuffer buffer = new RollingStatisticsBuffer(100);
+        Random rand = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            double value = rand.nextInt(20) == 0 ? Double.NaN : 1.0e6 + rand.nextGaussian();
+            buffer.addDouble(value);
+            Statistics expected = StatisticsUtil.statisticsOf(buffer);
+            Statistics actual = buffer.getStatistics();
+            assertThat(actual.getCount(), equalTo(expected.getCount()));
+            assertThat(actual.getMinimum(), equalTo(expected.getMinimum()));
+            assertThat(actual.getMaximum(), equalTo(expected.getMaximum()));
+            assertEquals(expected.getAverage(), actual.getAverage(), 1e-8);
+            assertEquals(expected.getStdDev(), actual.getStdDev(), 1e-6);
+        }
+    }
+    
+    @Test
+    public void clear1() {
+        RollingStatisticsBuffer buffer = new RollingStatisticsBuffer(10);
+        for (int i = 0; i < 15; i++) {
+            buffer.addDouble(i);
+        }
+        buffer.clear();
+        assertThat(buffer.getStatistics(), nullValue());
+        buffer.addDouble(-3);
+        assertThat(buffer.getStatistics().getMinimum(), equalTo((Number) (-3.0)));
+        assertThat(buffer.getStatistics().getMaximum(), equalTo((Number) (-3.0)));
+        assertThat(buffer.getStatistics().getStdDev(), equalTo(0.0));
+    }
+    
+    @Test
+    public void addAll1() {
+        RollingStatisticsBuffer buffer = new RollingStatisticsBuffer(3);
+        buffer.addAll(new double[] {5, 1, 2, 3, 4}, 0, 5);
+        assertThat(buffer, equalTo((ListDouble) new ArrayDouble(2, 3, 4)));
+        assertThat(buffer.getStatistics().getMinimum().doubleValue(), equalTo(2.0));
+        assertThat(buffer.getStatistics().getMaximum().doubleValue(), equalTo(4.0));
+        buffer.addAll(new ArrayDouble(0, 9));
+        assertThat(buffer.getStatistics().getMinimum().doubleValue(), equalTo(0.0));
+        assertEquals(13.0 / 3, buffer.getStatistics().getAverage(), 1e-12);
+    }
+    
+    @Test
+    public void getStatistics1() {
+        RollingStatisticsBuffer buffer = new RollingStatisticsBuffer(3);
+        MutableStatistics result = new MutableStatistics();
+        assertThat(buffer.getStatistics(result).getCount(), equalTo(0));
+        buffer.addAll(new double[] {5, 1, 2, 3, 4}, 0, 5);
+        buffer.getStatistics(result);
+        assertThat(result.getCount(), equalTo(3));
+        assertThat(result.getMinimumDouble(), equalTo(2.0));
+        assertThat(result.getMaximumDouble(), equalTo(4.0));
+        assertThat(result.getAverage(), equalTo(buffer.getStatistics().getAverage()));
+    }
+}
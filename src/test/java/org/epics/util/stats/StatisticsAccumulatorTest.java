@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2012-14 epics-util developers. See COPYRIGHT.TXT
+ * All rights reserved. Use is subject to license terms. See LICENSE.TXT
+ */
+package org.epics.util.stats;
+
+import java.util.Random;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ListMath;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+/**
+ *
+ * @author carcassi
+ */
+public class StatisticsAccumulatorTest {
+    
+    @Test
+    public void add1() {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        assertThat(accumulator.getStatistics(), nullValue());
+        accumulator.add(1);
+        accumulator.add(3);
+        accumulator.add(Double.NaN);
+        accumulator.add(5);
+        accumulator.add(-1);
+        accumulator.add(7);
+        Statistics stats = accumulator.getStatistics();
+        assertThat(stats.getCount(), equalTo(5));
+        assertThat(stats.getAverage(), equalTo(3.0));
+        assertEquals(2.8284271247461903, stats.getStdDev(), 1e-15);
+        assertThat(stats.getMinimum(), equalTo((Number) (-1.0)));
+        assertThat(stats.getMaximum(), equalTo((Number) 7.0));
+    }
+    
+    @Test
+    public void add2() {
+        // Small variation on a large offset: the sum of squares formula
+        // loses all significant digits
+        double[] data = new double[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = 1.0e9 + (i % 2 == 0 ? 0.5 : -0.5);
+        }
+        StatisticsAccumulator bulk = new StatisticsAccumulator();
+        bulk.add(new ArrayDouble(data));
+        StatisticsAccumulator single = new StatisticsAccumulator();
+        for (int i = 0; i < data.length; i++) {
+            single.add(data[i]);
+        }
+        assertEquals(0.5, bulk.getStatistics().getStdDev(), 1e-9);
+        assertEquals(0.5, single.getStatistics().getStdDev(), 1e-9);
+        assertEquals(1.0e9, bulk.getStatistics().getAverage(), 1e-9);
+    }
+    
+    @Test
+    public void merge1() {
+        double[] data = new double[5000];
+        Random rand = new Random(1);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = 1000 + rand.nextGaussian();
+        }
+        ArrayDouble list = new ArrayDouble(data);
+        StatisticsAccumulator whole = new StatisticsAccumulator();
+        whole.add(list);
+        StatisticsAccumulator first = new StatisticsAccumulator();
+        first.add(ListMath.limit(list, 0, 1234));
+        StatisticsAccumulator second = new StatisticsAccumulator();
+        second.add(list, 1234, 5000);
+        first.merge(second);
+        assertThat(first.getCount(), equalTo(5000));
+        assertEquals(whole.getStatistics().getAverage(), first.getStatistics().getAverage(), 1e-12);
+        assertEquals(whole.getStatistics().getStdDev(), first.getStatistics().getStdDev(), 1e-12);
+        assertThat(first.getStatistics().getMinimum(), equalTo(whole.getStatistics().getMinimum()));
+        assertThat(first.getStatistics().getMaximum(), equalTo(whole.getStatistics().getMaximum()));
+    }
+    
+    @Test
+    public void merge2() {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        accumulator.merge(new StatisticsAccumulator());
+        accumulator.merge((Statistics) null);
+        assertThat(accumulator.getStatistics(), nullValue());
+        accumulator.merge(StatisticsUtil.statisticsOf(new ArrayDouble(1, 3, 5)));
+        accumulator.merge(StatisticsUtil.statisticsOf(new ArrayDouble(-1, 7)));
+        assertThat(accumulator.getCount(), equalTo(5));
+        assertEquals(3.0, accumulator.getStatistics().getAverage(), 1e-15);
+        assertEquals(2.8284271247461903, accumulator.getStatistics().getStdDev(), 1e-15);
+    }
+    
+    @Test
+    public void clear1() {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        accumulator.add(new ArrayDouble(1, 2, 3));
+        accumulator.clear();
+        assertThat(accumulator.getStatistics(), nullValue());
+        accumulator.add(4);
+        assertThat(accumulator.getStatistics().getMinimum(), equalTo((Number) 4.0));
+        assertThat(accumulator.getStatistics().getMaximum(), equalTo((Number) 4.0));
+    }
+    
+    @Test
+    public void getStatistics1() {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        MutableStatistics result = new MutableStatistics();
+        assertThat(accumulator.getStatistics(result), sameInstance(result));
+        assertThat(result.getCount(), equalTo(0));
+        assertThat(result.getAverage(), equalTo(Double.NaN));
+        accumulator.add(new ArrayDouble(1, 3, Double.NaN, 5, -1, 7));
+        accumulator.getStatistics(result);
+        assertThat(result.getCount(), equalTo(5));
+        assertThat(result.getMinimumDouble(), equalTo(-1.0));
+        assertThat(result.getMaximumDouble(), equalTo(7.0));
+        assertThat(result.getAverage(), equalTo(3.0));
+        assertEquals(2.8284271247461903, result.getStdDev(), 1e-15);
+        // Same result as the immutable statistics
+        Statistics stats = accumulator.getStatistics();
+        assertThat(stats.getMinimum(), equalTo(result.getMinimum()));
+        assertThat(stats.getMaximum(), equalTo(result.getMaximum()));
+        assertThat(stats.getStdDev(), equalTo(result.getStdDev()));
+    }
+}
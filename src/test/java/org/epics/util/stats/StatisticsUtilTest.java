@@ -7,7 +7,13 @@ package org.epics.util.stats;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayInt;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListMath;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.ListNumbers;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import static org.hamcrest.CoreMatchers.*;
@@ -73,4 +79,156 @@ public class StatisticsUtilTest {
         assertThat(stats.getMaximum(), equalTo((Number) 7.0));
         assertThat(stats.getCount(), equalTo(5));
     }
+    
+    @Test
+    public void parallelStatisticsOf1() {
+        Statistics stats = StatisticsUtil.parallelStatisticsOf(new ArrayDouble(1, 3, 5, Double.NaN, -1, 7));
+        assertThat(stats.getAverage(), equalTo(3.0));
+        assertThat(stats.getStdDev(), equalTo(2.8284271247461903));
+        assertThat(stats.getMinimum(), equalTo((Number) (-1.0)));
+        assertThat(stats.getMaximum(), equalTo((Number) 7.0));
+        assertThat(stats.getCount(), equalTo(5));
+    }
+    
+    @Test
+    public void parallelStatisticsOf2() {
+        double[] data = new double[1000000];
+        Random rand = new Random(1);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = rand.nextGaussian();
+        }
+        data[12345] = Double.NaN;
+        Statistics serial = StatisticsUtil.statisticsOf(new ArrayDouble(data));
+        Statistics parallel = StatisticsUtil.parallelStatisticsOf(new ArrayDouble(data), 0);
+        assertThat(parallel.getCount(), equalTo(serial.getCount()));
+        assertThat(parallel.getMinimum(), equalTo(serial.getMinimum()));
+        assertThat(parallel.getMaximum(), equalTo(serial.getMaximum()));
+        assertEquals(serial.getAverage(), parallel.getAverage(), 1e-12);
+        assertEquals(serial.getStdDev(), parallel.getStdDev(), 1e-12);
+    }
+    
+    @Test
+    public void parallelStatisticsOf3() {
+        double[] data = new double[100000];
+        Arrays.fill(data, Double.NaN);
+        assertThat(StatisticsUtil.parallelStatisticsOf(new ArrayDouble(data), 0), nullValue());
+    }
+    
+    @Test
+    public void quantileOf1() {
+        assertThat(StatisticsUtil.medianOf(new ArrayDouble(3, 1, Double.NaN, 2, 5)), equalTo(2.5));
+        ListDouble quantiles = StatisticsUtil.quantilesOf(new ArrayInt(1, 2, 3, 4), 1, 0, 0.5, 0.25);
+        assertThat(quantiles, equalTo((ListDouble) new ArrayDouble(4, 1, 2.5, 1.75)));
+        assertThat(StatisticsUtil.medianOf(new ArrayDouble()), equalTo(Double.NaN));
+        assertThat(StatisticsUtil.quantileOf(new ArrayDouble(Double.NaN), 0.9), equalTo(Double.NaN));
+    }
+    
+    @Test
+    public void quantileOf2() {
+        // Same as interpolating on the sorted data
+        Random rand = new Random(1);
+        double[] p = new double[] {0.95, 0, 0.5, 0.1, 1, 0.333};
+        for (int size : new int[] {1, 2, 17, 1000, 100001}) {
+            double[] data = new double[size];
+            for (int i = 0; i < size; i++) {
+                data[i] = i % 2 == 0 ? rand.nextGaussian() : rand.nextInt(10);
+            }
+            double[] sorted = data.clone();
+            Arrays.sort(sorted);
+            ListDouble quantiles = StatisticsUtil.quantilesOf(new ArrayDouble(data), p);
+            for (int i = 0; i < p.length; i++) {
+                double rank = (size - 1) * p[i];
+                int index = (int) rank;
+                double expected = rank == index ? sorted[index] : sorted[index] + (rank - index) * (sorted[index + 1] - sorted[index]);
+                assertEquals(expected, quantiles.getDouble(i), 1e-12);
+            }
+        }
+    }
+    
+    @Test
+    public void quantileOf3() {
+        // Descending and constant data
+        assertThat(StatisticsUtil.medianOf(ListNumbers.linearList(1000000, -1, 1000000)), equalTo(500000.5));
+        double[] data = new double[1000000];
+        Arrays.fill(data, 3.0);
+        assertThat(StatisticsUtil.quantileOf(new ArrayDouble(data), 0.9), equalTo(3.0));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void quantileOf4() {
+        StatisticsUtil.quantileOf(new ArrayDouble(1, 2), 1.5);
+    }
+    
+    @Test
+    public void statisticsOfMutableHolder() {
+        MutableStatistics result = new MutableStatistics();
+        StatisticsUtil.statisticsOf(new ArrayInt(1, 2, 3, 4, 5), result);
+        assertThat(result.getCount(), equalTo(5));
+        assertThat(result.getMinimumDouble(), equalTo(1.0));
+        assertThat(result.getMaximumDouble(), equalTo(5.0));
+        assertThat(result.getAverage(), equalTo(3.0));
+        // Reusing the holder
+        StatisticsUtil.statisticsOf(new ArrayDouble(Double.NaN), result);
+        assertThat(result.getCount(), equalTo(0));
+        assertThat(result.getMinimumDouble(), equalTo(Double.NaN));
+        result.set(StatisticsUtil.statisticsOf(new ArrayDouble(2, 4)));
+        assertThat(result.getAverage(), equalTo(3.0));
+        assertThat(Ranges.minimum(StatisticsUtil.lazyStatisticsOf(new ArrayDouble(2, 4))), equalTo(2.0));
+    }
+    
+    @Test
+    public void columnStatisticsOf1() {
+        ArrayDouble x = new ArrayDouble(1, 2, Double.NaN, 4, 5);
+        ArrayInt y = new ArrayInt(10, 20, 30, 40, 50);
+        ArrayDouble z = new ArrayDouble(Double.NaN, 0, 0, 0, Double.NaN);
+        List<Statistics> stats = StatisticsUtil.columnStatisticsOf(x, y, z);
+        assertThat(stats.size(), equalTo(3));
+        assertThat(stats.get(0).getCount(), equalTo(4));
+        assertThat(stats.get(0).getAverage(), equalTo(3.0));
+        assertThat(stats.get(1).getCount(), equalTo(5));
+        assertThat(stats.get(1).getMaximum(), equalTo((Number) 50.0));
+        assertThat(stats.get(2).getCount(), equalTo(3));
+        
+        // Only rows 1 and 3 have no NaN
+        stats = StatisticsUtil.columnStatisticsOf(true, x, y, z);
+        assertThat(stats.get(0).getCount(), equalTo(2));
+        assertThat(stats.get(0).getAverage(), equalTo(3.0));
+        assertThat(stats.get(1).getMinimum(), equalTo((Number) 20.0));
+        assertThat(stats.get(1).getMaximum(), equalTo((Number) 40.0));
+        assertThat(stats.get(2).getCount(), equalTo(2));
+        
+        stats = StatisticsUtil.columnStatisticsOf(true, x, new ArrayDouble(Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN));
+        assertThat(stats.get(0), nullValue());
+        assertThat(stats.get(1), nullValue());
+    }
+    
+    @Test
+    public void columnStatisticsOf2() {
+        // Larger than a block: same as separate calculations
+        Random rand = new Random(1);
+        double[] x = new double[5000];
+        double[] y = new double[5000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i % 7 == 0 ? Double.NaN : rand.nextGaussian();
+            y[i] = 1e6 + rand.nextGaussian();
+        }
+        MutableStatistics[] results = new MutableStatistics[] {new MutableStatistics(), new MutableStatistics()};
+        StatisticsUtil.columnStatisticsOf(new ListNumber[] {new ArrayDouble(x), ListMath.rescale(new ArrayDouble(y), 1, 0)}, false, results);
+        Statistics statsX = StatisticsUtil.statisticsOf(new ArrayDouble(x));
+        Statistics statsY = StatisticsUtil.statisticsOf(new ArrayDouble(y));
+        assertThat(results[0].getCount(), equalTo(statsX.getCount()));
+        assertEquals(statsX.getAverage(), results[0].getAverage(), 1e-12);
+        assertEquals(statsX.getStdDev(), results[0].getStdDev(), 1e-12);
+        assertThat(results[1].getCount(), equalTo(5000));
+        assertThat(results[1].getMinimum(), equalTo(statsY.getMinimum()));
+        assertEquals(statsY.getAverage(), results[1].getAverage(), 1e-6);
+        
+        StatisticsUtil.columnStatisticsOf(new ListNumber[] {new ArrayDouble(x), new ArrayDouble(y)}, true, results);
+        assertThat(results[1].getCount(), equalTo(statsX.getCount()));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void columnStatisticsOf3() {
+        StatisticsUtil.columnStatisticsOf(new ArrayDouble(1, 2), new ArrayDouble(1, 2, 3));
+    }
 }